@@ -23,7 +23,16 @@ import { ref, set, onValue, off, get } from 'firebase/database';
 import { HouseholdLink } from './views/HouseholdLink';
 import { HouseholdMember, Contact } from './types';
 import { FirebaseMessaging } from '@capacitor-firebase/messaging';
-import { startFallDetection, stopFallDetection, subscribeFallDetected } from './services/fallDetection';
+import {
+  startFallDetection,
+  stopFallDetection,
+  acknowledgeFall,
+  disableFallDetection,
+  subscribeFallDetected,
+  syncEmergencyContacts,
+  requestEmergencyPermissions,
+  requestExactAlarmPermission,
+} from './services/fallDetection';
 import VoiceEmergencyDetector from './services/voiceEmergency';
 import { 
   initVolumeButtonShortcut, 
@@ -157,6 +166,9 @@ const App = () => {
   // Household Members and Contacts
   const [householdMembers, setHouseholdMembers] = useState<HouseholdMember[]>([]);
   const [contacts, setContacts] = useState<Contact[]>([]);
+  const [contactsLoaded, setContactsLoaded] = useState(false);
+  // True only when the last Firebase snapshot had no contacts at all.
+  const contactsSnapshotEmptyRef = useRef(false);
   const [allHouseholdSeniors, setAllHouseholdSeniors] = useState<{ [householdId: string]: HouseholdMember }>({});
   
   // Audio Context Ref for Caregiver Alert
@@ -545,6 +557,9 @@ const App = () => {
   // Add contact to household
   const handleAddContact = async (contact: Contact) => {
       if (!householdId) return;
+      if (role === UserRole.SENIOR) {
+        requestEmergencyPermissions();
+      }
       try {
         await set(ref(db, `households/${householdId}/contacts/${contact.id}`), contact);
       } catch (e) {
@@ -833,6 +848,15 @@ const App = () => {
     };
   }, []);
 
+  // Keep the native contact cache current so escalation can text/call without JS.
+  // Wait for the Firebase snapshot so launch never overwrites it with the initial [],
+  // and only clear it when that snapshot really was empty.
+  useEffect(() => {
+    if (role === UserRole.SENIOR && contactsLoaded) {
+      syncEmergencyContacts(contacts, contactsSnapshotEmptyRef.current);
+    }
+  }, [role, contacts, contactsLoaded]);
+
   // Background fall detection via native foreground service
   useEffect(() => {
     if (role === UserRole.SENIOR && householdId && seniorStatus.isFallDetectionEnabled) {
@@ -1305,12 +1329,19 @@ const App = () => {
     const contactsRef = ref(db, `households/${householdId}/contacts`);
     const unsub = onValue(contactsRef, (snapshot) => {
       const data = snapshot.val();
+      contactsSnapshotEmptyRef.current = !data;
       if (data) {
         const contactsList = Object.values(data) as Contact[];
         setContacts(contactsList);
+      } else {
+        setContacts([]);
       }
+      setContactsLoaded(true);
     });
-    return () => off(contactsRef, 'value');
+    return () => {
+      off(contactsRef, 'value');
+      setContactsLoaded(false);
+    };
   }, [householdId]);
 
   // Subscribe to reminders
@@ -1458,6 +1489,11 @@ const App = () => {
     addActivity('INFO', 'Emergency Cancelled', 'Marked safe by user');
   }, []);
 
+  const handleCancelFall = useCallback(() => {
+    acknowledgeFall();
+    handleCancelEmergency();
+  }, [handleCancelEmergency]);
+
   const handleSwitchHousehold = (newHouseholdId: string) => {
     console.log('[App] Switching to household:', newHouseholdId);
     localStorage.setItem('safenest_active_household', newHouseholdId);
@@ -1466,6 +1502,7 @@ const App = () => {
     setHouseholdId(newHouseholdId);
     // Reset states for new household
     setHouseholdMembers([]);
+    setContactsLoaded(false);
     setContacts([]);
     setReminders([]);
     setSeniorStatus(INITIAL_SENIOR_STATUS);
@@ -1518,11 +1555,13 @@ const App = () => {
       if (sensor === 'fall' && enabled) {
           const granted = await requestMotionPermission();
           if (!granted) return; 
+          await requestEmergencyPermissions();
+          await requestExactAlarmPermission();
       }
 
       // If user turns fall detection off, proactively stop the native service and clear timers.
       if (sensor === 'fall' && !enabled) {
-        stopFallDetection();
+        disableFallDetection();
         if (fallCountdownTimerRef.current) {
           clearTimeout(fallCountdownTimerRef.current);
           fallCountdownTimerRef.current = null;
@@ -1623,7 +1662,7 @@ const App = () => {
 
     // Emergency screens take priority over role-based screens
     if (appStatus === AppStatus.WARNING_FALL) {
-       return <FallCountdown onCancel={handleCancelEmergency} onConfirm={handleConfirmEmergency} />;
+       return <FallCountdown onCancel={handleCancelFall} onConfirm={handleConfirmEmergency} />;
     }
 
     if (appStatus === AppStatus.WARNING_SOS) {
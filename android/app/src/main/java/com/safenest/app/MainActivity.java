@@ -7,6 +7,7 @@ import android.os.Bundle;
 import android.util.Log;
 import android.view.WindowManager;
 import com.getcapacitor.BridgeActivity;
+import com.safenest.app.falldetection.DiagnosticsLog;
 import com.safenest.app.falldetection.FallDetectionPlugin;
 import com.safenest.app.falldetection.FallDetectionService;
 
@@ -18,7 +19,8 @@ public class MainActivity extends BridgeActivity {
 	public void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		
-		Log.d(TAG, "MainActivity onCreate");
+		DiagnosticsLog.init(this);
+		DiagnosticsLog.log(DiagnosticsLog.ACTIVITY_CREATE);
 		registerPlugin(FallDetectionPlugin.class);
 		
 		// Check if launched from fall detection
@@ -36,7 +38,7 @@ public class MainActivity extends BridgeActivity {
 			} else {
 				startService(serviceIntent);
 			}
-			Log.d(TAG, "Fall detection service started (auto-start)");
+			DiagnosticsLog.log(DiagnosticsLog.SERVICE_AUTO_START);
 		} catch (Exception e) {
 			Log.e(TAG, "Error auto-starting fall detection", e);
 		}
@@ -45,16 +47,20 @@ public class MainActivity extends BridgeActivity {
 	@Override
 	protected void onNewIntent(Intent intent) {
 		super.onNewIntent(intent);
-		Log.d(TAG, "MainActivity onNewIntent - Action: " + (intent != null ? intent.getAction() : "null"));
-		Log.d(TAG, "MainActivity onNewIntent - triggerSOS extra: " + (intent != null ? intent.getBooleanExtra("triggerSOS", false) : "null"));
 		setIntent(intent);
 		handleFallDetectionIntent(intent);
 	}
 
 	private void handleFallDetectionIntent(Intent intent) {
+		if (intent != null) {
+			// Bit 0: fall_detected, bit 1: triggerSOS
+			DiagnosticsLog.log(
+				DiagnosticsLog.ACTIVITY_INTENT,
+				(intent.getBooleanExtra("fall_detected", false) ? 1 : 0) | (intent.getBooleanExtra("triggerSOS", false) ? 2 : 0),
+				0L
+			);
+		}
 		if (intent != null && intent.getBooleanExtra("fall_detected", false)) {
-			Log.d(TAG, "Fall detected intent received!");
-			
 			// Turn on screen and show over lockscreen
 			getWindow().addFlags(
 				WindowManager.LayoutParams.FLAG_SHOW_WHEN_LOCKED |
@@ -66,7 +72,6 @@ public class MainActivity extends BridgeActivity {
 			
 			// Notify the JS side that app was launched from fall detection
 			if (getBridge() != null) {
-				Log.d(TAG, "Triggering fallDetected event to JS");
 				getBridge().triggerWindowJSEvent("fallDetected", "{}");
 			} else {
 				Log.e(TAG, "Bridge is null");
@@ -75,7 +80,6 @@ public class MainActivity extends BridgeActivity {
 		
 		// Handle SOS widget trigger
 		if (intent != null && intent.getBooleanExtra("triggerSOS", false)) {
-			Log.d(TAG, "SOS triggered from widget!");
 			pendingWidgetSOS = true;
 			
 			// Turn on screen and show over lockscreen
@@ -102,11 +106,10 @@ public class MainActivity extends BridgeActivity {
 				try {
 					Thread.sleep(delayMs);
 					runOnUiThread(() -> {
-						if (getBridge() != null) {
-							Log.d(TAG, "Attempt " + currentAttempt + " - Triggering widgetSOS event to JS");
+						boolean bridgeReady = getBridge() != null;
+						DiagnosticsLog.log(DiagnosticsLog.WIDGET_SOS_ATTEMPT, currentAttempt, bridgeReady ? 1L : 0L);
+						if (bridgeReady) {
 							getBridge().triggerWindowJSEvent("widgetSOS", "{}");
-						} else {
-							Log.d(TAG, "Attempt " + currentAttempt + " - Bridge not ready yet");
 						}
 					});
 				} catch (InterruptedException e) {
@@ -114,7 +117,7 @@ public class MainActivity extends BridgeActivity {
 					return;
 				}
 			}
-			Log.d(TAG, "Widget SOS retry loop finished");
+			DiagnosticsLog.log(DiagnosticsLog.WIDGET_SOS_DONE);
 		}).start();
 	}
 	
@@ -124,7 +127,6 @@ public class MainActivity extends BridgeActivity {
 		super.onResume();
 		// Clear the flag on resume to prevent infinite loops
 		if (pendingWidgetSOS) {
-			Log.d(TAG, "onResume - Clearing pending widget SOS flag");
 			pendingWidgetSOS = false;
 		}
 	}
@@ -5,6 +5,8 @@ import android.appwidget.AppWidgetManager;
 import android.appwidget.AppWidgetProvider;
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
+import android.text.format.DateFormat;
 import android.util.Log;
 import android.widget.RemoteViews;
 
@@ -46,11 +48,44 @@ public class SOSWidgetProvider extends AppWidgetProvider {
         RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_sos);
         views.setOnClickPendingIntent(R.id.widget_button, pendingIntent);
 
+        // Render the last status pushed by the service; later changes arrive as partial updates
+        SharedPreferences prefs = context.getSharedPreferences(WidgetStatusPublisher.PREFS_NAME, Context.MODE_PRIVATE);
+        applyStatus(
+            context,
+            views,
+            prefs.getInt(WidgetStatusPublisher.KEY_STATE, WidgetStatusPublisher.STATE_OFF),
+            prefs.getLong(WidgetStatusPublisher.KEY_LAST_CHECK_IN, 0L)
+        );
+
         // Update the widget
         appWidgetManager.updateAppWidget(appWidgetId, views);
         Log.d(TAG, "Widget " + appWidgetId + " updated with SOS click handler");
     }
 
+    static void applyStatus(Context context, RemoteViews views, int state, long lastCheckIn) {
+        int label;
+        switch (state) {
+            case WidgetStatusPublisher.STATE_ACTIVE:
+                label = R.string.widget_status_active;
+                break;
+            case WidgetStatusPublisher.STATE_DEGRADED:
+                label = R.string.widget_status_degraded;
+                break;
+            case WidgetStatusPublisher.STATE_ALERT:
+                label = R.string.widget_status_alert;
+                break;
+            default:
+                label = R.string.widget_status_off;
+                break;
+        }
+        String text = context.getString(label);
+        if (state != WidgetStatusPublisher.STATE_ALERT && lastCheckIn > 0) {
+            String time = DateFormat.getTimeFormat(context).format(lastCheckIn);
+            text = context.getString(R.string.widget_status_checked, text, time);
+        }
+        views.setTextViewText(R.id.widget_status, text);
+    }
+
     @Override
     public void onEnabled(Context context) {
         // Called when first widget is created
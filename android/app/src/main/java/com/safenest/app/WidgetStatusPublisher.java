@@ -0,0 +1,117 @@
+package com.safenest.app;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.widget.RemoteViews;
+
+/**
+ * Pushes monitoring status from the fall detection service to the SOS widget.
+ *
+ * Only the status line is sent, via partiallyUpdateAppWidget, and only when the
+ * rendered text would change. Non-urgent pushes are coalesced to at most one per
+ * {@link #MIN_PUSH_INTERVAL_MS}; alert and shutdown changes go out immediately.
+ * The last status is kept in prefs so a freshly added widget renders it in onUpdate.
+ * Must be used from the main thread.
+ */
+public final class WidgetStatusPublisher {
+    private static final String TAG = "WidgetStatus";
+
+    public static final int STATE_OFF = 0;
+    public static final int STATE_ACTIVE = 1;
+    public static final int STATE_DEGRADED = 2;
+    public static final int STATE_ALERT = 3;
+
+    static final String PREFS_NAME = "safenest_prefs";
+    static final String KEY_STATE = "widget_state";
+    static final String KEY_LAST_CHECK_IN = "widget_last_check_in";
+
+    private static final long MIN_PUSH_INTERVAL_MS = 2_000L;
+    private static final long CHECK_IN_INTERVAL_MS = 15 * 60_000L;
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushTask = this::flush;
+
+    private int state = STATE_OFF;
+    private long lastCheckIn;
+    private int pushedState = -1;
+    private long pushedCheckInMinute = -1L;
+    private long lastPushUptime = -MIN_PUSH_INTERVAL_MS;
+    private boolean flushPending;
+
+    public WidgetStatusPublisher(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public void setState(int newState) {
+        if (newState == state) {
+            return;
+        }
+        boolean urgent = newState == STATE_ALERT || state == STATE_ALERT || newState == STATE_OFF;
+        state = newState;
+        push(urgent);
+    }
+
+    /** Called on every sample; only does work once per check-in interval. */
+    public void onHeartbeat(long now) {
+        if (now - lastCheckIn < CHECK_IN_INTERVAL_MS) {
+            return;
+        }
+        lastCheckIn = now;
+        push(false);
+    }
+
+    private void push(boolean urgent) {
+        if (!isDirty()) {
+            return;
+        }
+        long wait = lastPushUptime + MIN_PUSH_INTERVAL_MS - SystemClock.uptimeMillis();
+        if (!urgent && wait > 0) {
+            if (!flushPending) {
+                flushPending = true;
+                handler.postDelayed(flushTask, wait);
+            }
+            return;
+        }
+        flush();
+    }
+
+    private boolean isDirty() {
+        return state != pushedState || lastCheckIn / 60_000L != pushedCheckInMinute;
+    }
+
+    private void flush() {
+        if (flushPending) {
+            handler.removeCallbacks(flushTask);
+            flushPending = false;
+        }
+        if (!isDirty()) {
+            return;
+        }
+        pushedState = state;
+        pushedCheckInMinute = lastCheckIn / 60_000L;
+        lastPushUptime = SystemClock.uptimeMillis();
+
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putInt(KEY_STATE, state).putLong(KEY_LAST_CHECK_IN, lastCheckIn).apply();
+
+        try {
+            AppWidgetManager manager = AppWidgetManager.getInstance(context);
+            int[] ids = manager.getAppWidgetIds(new ComponentName(context, SOSWidgetProvider.class));
+            if (ids == null || ids.length == 0) {
+                return;
+            }
+            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_sos);
+            SOSWidgetProvider.applyStatus(context, views, state, lastCheckIn);
+            manager.partiallyUpdateAppWidget(ids, views);
+        } catch (Exception e) {
+            Log.e(TAG, "Widget status push failed", e);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.safenest.app.falldetection;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * On-device activity history, kept as three append-only tiers (minute, hour, day).
+ * Each minute bucket written by the service is also folded into the current hour and
+ * day buckets, which are appended when they roll over. Old minute and hour data is
+ * compacted away once a day, so the whole store stays well under a megabyte.
+ */
+public final class ActivityHistoryStore {
+    private static final String TAG = "ActivityHistory";
+
+    public static final int RESOLUTION_MINUTE = 0;
+    public static final int RESOLUTION_HOUR = 1;
+    public static final int RESOLUTION_DAY = 2;
+
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final int MINUTES_PER_DAY = 1440;
+    private static final long MINUTE_RETENTION = 7L * MINUTES_PER_DAY;
+    private static final long HOUR_RETENTION = 400L * MINUTES_PER_DAY;
+
+    private static ActivityHistoryStore instance;
+
+    private final ActivityTierFile minutes;
+    private final ActivityTierFile hours;
+    private final ActivityTierFile days;
+    private final Bucket hourBucket = new Bucket();
+    private final Bucket dayBucket = new Bucket();
+    private ActivityRecorder.PartialMinute parkedMinute;
+    private boolean opened;
+
+    public static synchronized ActivityHistoryStore get(Context context) {
+        if (instance == null) {
+            instance = new ActivityHistoryStore(new File(context.getApplicationContext().getFilesDir(), "activity_history"));
+        }
+        return instance;
+    }
+
+    private ActivityHistoryStore(File dir) {
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.e(TAG, "Could not create " + dir);
+        }
+        minutes = new ActivityTierFile(new File(dir, "minute.ts"));
+        hours = new ActivityTierFile(new File(dir, "hour.ts"));
+        days = new ActivityTierFile(new File(dir, "day.ts"));
+    }
+
+    /**
+     * Records one finished minute. {@code meanMilli} and {@code peakMilli} are the mean
+     * and peak deviation of |a| from gravity in milli-m/s^2.
+     */
+    public synchronized void recordMinute(long minute, int samples, int meanMilli, int peakMilli, int impacts) {
+        if (samples <= 0 || !ensureOpen()) {
+            return;
+        }
+        try {
+            if (!minutes.append(minute, samples, meanMilli, peakMilli, impacts)) {
+                return;
+            }
+            long hourStart = bucketStart(minute, MINUTES_PER_HOUR);
+            if (!hourBucket.isEmpty() && hourBucket.start != hourStart) {
+                hours.append(hourBucket.start, hourBucket.samples, hourBucket.mean(), hourBucket.peak, hourBucket.impacts);
+                hourBucket.clear();
+            }
+            long dayStart = bucketStart(minute, MINUTES_PER_DAY);
+            if (!dayBucket.isEmpty() && dayBucket.start != dayStart) {
+                days.append(dayBucket.start, dayBucket.samples, dayBucket.mean(), dayBucket.peak, dayBucket.impacts);
+                dayBucket.clear();
+                minutes.retain(minute - MINUTE_RETENTION);
+                hours.retain(minute - HOUR_RETENTION);
+            }
+            hourBucket.add(hourStart, samples, meanMilli, peakMilli, impacts);
+            dayBucket.add(dayStart, samples, meanMilli, peakMilli, impacts);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to record activity minute", e);
+        }
+    }
+
+    /** Holds an unfinished minute across a service restart; see {@link ActivityRecorder}. */
+    synchronized void parkPartialMinute(ActivityRecorder.PartialMinute partial) {
+        parkedMinute = partial;
+    }
+
+    synchronized ActivityRecorder.PartialMinute takePartialMinute() {
+        ActivityRecorder.PartialMinute partial = parkedMinute;
+        parkedMinute = null;
+        return partial;
+    }
+
+    /**
+     * Returns buckets at the given resolution whose start lies in [fromMs, toMs],
+     * including the still-open hour or day bucket.
+     */
+    public synchronized ActivityHistory query(long fromMs, long toMs, int resolution) throws IOException {
+        ActivityHistory result = new ActivityHistory(resolution);
+        if (!ensureOpen()) {
+            throw new IOException("Activity history unavailable");
+        }
+        long from = Math.floorDiv(fromMs, 60_000L);
+        long to = Math.floorDiv(toMs, 60_000L);
+        switch (resolution) {
+            case RESOLUTION_MINUTE:
+                minutes.query(from, to, result::add);
+                break;
+            case RESOLUTION_HOUR:
+                from = bucketStart(from, MINUTES_PER_HOUR);
+                hours.query(from, to, result::add);
+                result.addOpen(hourBucket, from, to);
+                break;
+            default:
+                from = bucketStart(from, MINUTES_PER_DAY);
+                days.query(from, to, result::add);
+                result.addOpen(dayBucket, from, to);
+                break;
+        }
+        return result;
+    }
+
+    /** Picks the coarsest resolution that still gives a useful number of points for the range. */
+    public static int autoResolution(long fromMs, long toMs) {
+        long span = toMs - fromMs;
+        if (span <= 24L * 3_600_000L) {
+            return RESOLUTION_MINUTE;
+        }
+        if (span <= 60L * 24L * 3_600_000L) {
+            return RESOLUTION_HOUR;
+        }
+        return RESOLUTION_DAY;
+    }
+
+    private boolean ensureOpen() {
+        if (opened) {
+            return true;
+        }
+        try {
+            minutes.open();
+            hours.open();
+            days.open();
+            restoreOpenBuckets();
+            opened = true;
+            Log.d(TAG, "Opened (" + (minutes.sizeBytes() + hours.sizeBytes() + days.sizeBytes()) + " bytes)");
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to open activity history", e);
+            minutes.close();
+            hours.close();
+            days.close();
+        }
+        return opened;
+    }
+
+    /** Rebuilds the in-progress hour and day buckets from the finer tiers after a restart. */
+    private void restoreOpenBuckets() throws IOException {
+        hourBucket.clear();
+        dayBucket.clear();
+        if (minutes.isEmpty()) {
+            return;
+        }
+        long last = minutes.lastStart();
+        long hourStart = bucketStart(last, MINUTES_PER_HOUR);
+        long dayStart = bucketStart(last, MINUTES_PER_DAY);
+        if (hours.isEmpty() || hours.lastStart() < hourStart) {
+            minutes.query(hourStart, last, (start, samples, mean, peak, impacts) ->
+                hourBucket.add(hourStart, samples, mean, peak, impacts));
+        }
+        if (days.isEmpty() || days.lastStart() < dayStart) {
+            hours.query(dayStart, last, (start, samples, mean, peak, impacts) ->
+                dayBucket.add(dayStart, samples, mean, peak, impacts));
+            if (!hourBucket.isEmpty()) {
+                dayBucket.add(dayStart, hourBucket.samples, hourBucket.mean(), hourBucket.peak, hourBucket.impacts);
+            }
+        }
+    }
+
+    /** Start of the local-time bucket containing {@code minute}, as an epoch minute. */
+    static long bucketStart(long minute, int bucketMinutes) {
+        if (bucketMinutes == MINUTES_PER_DAY) {
+            // Local midnight, not minute + offset(minute): on DST days the offset at a
+            // given minute differs from the one at midnight, which would move the start.
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(minute * 60_000L);
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            return Math.floorDiv(calendar.getTimeInMillis(), 60_000L);
+        }
+        long offset = TimeZone.getDefault().getOffset(minute * 60_000L) / 60_000L;
+        return Math.floorDiv(minute + offset, bucketMinutes) * bucketMinutes - offset;
+    }
+
+    private static final class Bucket {
+        long start;
+        int samples;
+        long weightedSum;
+        int peak;
+        int impacts;
+
+        boolean isEmpty() {
+            return samples == 0;
+        }
+
+        void add(long bucketStart, int n, int mean, int peakValue, int impactCount) {
+            start = bucketStart;
+            samples += n;
+            weightedSum += (long) mean * n;
+            peak = Math.max(peak, peakValue);
+            impacts += impactCount;
+        }
+
+        int mean() {
+            return samples == 0 ? 0 : (int) (weightedSum / samples);
+        }
+
+        void clear() {
+            samples = 0;
+            weightedSum = 0L;
+            peak = 0;
+            impacts = 0;
+        }
+    }
+
+    /** Column-oriented query result; times are epoch millis, levels are milli-m/s^2. */
+    public static final class ActivityHistory {
+        public final int resolution;
+        public long[] start = new long[64];
+        public int[] samples = new int[64];
+        public int[] mean = new int[64];
+        public int[] peak = new int[64];
+        public int[] impacts = new int[64];
+        public int size;
+
+        ActivityHistory(int resolution) {
+            this.resolution = resolution;
+        }
+
+        void add(long startMinute, int sampleCount, int meanValue, int peakValue, int impactCount) {
+            if (size == start.length) {
+                int capacity = size * 2;
+                start = Arrays.copyOf(start, capacity);
+                samples = Arrays.copyOf(samples, capacity);
+                mean = Arrays.copyOf(mean, capacity);
+                peak = Arrays.copyOf(peak, capacity);
+                impacts = Arrays.copyOf(impacts, capacity);
+            }
+            start[size] = startMinute * 60_000L;
+            samples[size] = sampleCount;
+            mean[size] = meanValue;
+            peak[size] = peakValue;
+            impacts[size] = impactCount;
+            size++;
+        }
+
+        void addOpen(Bucket bucket, long fromMinute, long toMinute) {
+            if (!bucket.isEmpty() && bucket.start >= fromMinute && bucket.start <= toMinute
+                    && (size == 0 || start[size - 1] < bucket.start * 60_000L)) {
+                add(bucket.start, bucket.samples, bucket.mean(), bucket.peak, bucket.impacts);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.safenest.app.falldetection;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+
+/**
+ * Folds accelerometer samples into one-minute buckets without allocating, and hands
+ * each finished minute to {@link ActivityHistoryStore} on a background thread.
+ * A minute still open on {@link #close()} is parked in the store and resumed by the
+ * next recorder, since the service restarts on every app foreground change and a
+ * minute can only be appended once.
+ */
+final class ActivityRecorder {
+    private static final float GRAVITY = 9.80665f;
+
+    private final ActivityHistoryStore store;
+    private final HandlerThread ioThread = new HandlerThread("ActivityHistory");
+    private final Handler ioHandler;
+
+    private long minute = -1L;
+    private int samples;
+    private long sumMilli;
+    private int peakMilli;
+    private int impacts;
+
+    ActivityRecorder(ActivityHistoryStore store) {
+        this.store = store;
+        ioThread.start();
+        ioHandler = new Handler(ioThread.getLooper());
+        PartialMinute parked = store.takePartialMinute();
+        if (parked != null) {
+            minute = parked.minute;
+            samples = parked.samples;
+            sumMilli = parked.sumMilli;
+            peakMilli = parked.peakMilli;
+            impacts = parked.impacts;
+        }
+    }
+
+    void onSample(long nowMs, float magnitude) {
+        long sampleMinute = nowMs / 60_000L;
+        if (sampleMinute != minute) {
+            flush();
+            minute = sampleMinute;
+        }
+        int level = (int) (Math.abs(magnitude - GRAVITY) * 1000f);
+        samples++;
+        sumMilli += level;
+        if (level > peakMilli) {
+            peakMilli = level;
+        }
+    }
+
+    void onImpact() {
+        impacts++;
+    }
+
+    /** Parks the partial minute in the store and stops the IO thread once pending writes finish. */
+    void close() {
+        if (samples > 0) {
+            store.parkPartialMinute(new PartialMinute(minute, samples, sumMilli, peakMilli, impacts));
+        }
+        ioThread.quitSafely();
+    }
+
+    private void flush() {
+        if (samples > 0) {
+            final long m = minute;
+            final int n = samples;
+            final int mean = (int) (sumMilli / samples);
+            final int peak = peakMilli;
+            final int hits = impacts;
+            ioHandler.post(() -> store.recordMinute(m, n, mean, peak, hits));
+        }
+        samples = 0;
+        sumMilli = 0L;
+        peakMilli = 0;
+        impacts = 0;
+    }
+
+    /** Accumulator state of a minute that was not finished when its recorder closed. */
+    static final class PartialMinute {
+        final long minute;
+        final int samples;
+        final long sumMilli;
+        final int peakMilli;
+        final int impacts;
+
+        PartialMinute(long minute, int samples, long sumMilli, int peakMilli, int impacts) {
+            this.minute = minute;
+            this.samples = samples;
+            this.sumMilli = sumMilli;
+            this.peakMilli = peakMilli;
+            this.impacts = impacts;
+        }
+    }
+}
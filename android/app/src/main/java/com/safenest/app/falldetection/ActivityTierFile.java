@@ -0,0 +1,326 @@
+package com.safenest.app.falldetection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * One resolution tier of the activity history: an append-only file of buckets.
+ *
+ * File layout: a 5 byte header (magic + version) followed by records of
+ * varint(startMinute - prevStart), varint(samples), zigzag(mean - prevMean),
+ * zigzag(peak - prevPeak), varint(impacts). A typical minute record is 4-6 bytes.
+ * A sparse in-memory index (decoder state every {@link #INDEX_STRIDE} records) lets
+ * range queries seek close to the start instead of decoding the whole file.
+ */
+final class ActivityTierFile {
+    interface Sink {
+        void accept(long startMinute, int samples, int mean, int peak, int impacts);
+    }
+
+    private static final int MAGIC = 0x534E5453; // "SNTS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 5;
+    private static final int INDEX_STRIDE = 128;
+
+    private final File file;
+    private final byte[] scratch = new byte[40];
+
+    private FileOutputStream out;
+    private long length;
+    private int count;
+    private long lastStart = Long.MIN_VALUE;
+    private int lastMean;
+    private int lastPeak;
+
+    // Index entry i describes record i * INDEX_STRIDE: its start, byte offset and the
+    // decoder state (previous start/mean/peak) needed to resume decoding there.
+    private long[] indexStart = new long[16];
+    private long[] indexOffset = new long[16];
+    private long[] indexPrevStart = new long[16];
+    private int[] indexPrevMean = new int[16];
+    private int[] indexPrevPeak = new int[16];
+    private int indexSize;
+
+    ActivityTierFile(File file) {
+        this.file = file;
+    }
+
+    /** Scans the file to rebuild the index, dropping a torn tail left by a crash. */
+    void open() throws IOException {
+        resetState();
+        if (file.exists() && file.length() >= HEADER_BYTES && hasValidHeader()) {
+            long validLength = scan();
+            if (validLength < file.length()) {
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.setLength(validLength);
+                }
+            }
+            length = validLength;
+        } else {
+            writeHeader(file);
+            length = HEADER_BYTES;
+        }
+        out = new FileOutputStream(file, true);
+    }
+
+    void close() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+            out = null;
+        }
+    }
+
+    long lastStart() {
+        return lastStart;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    long sizeBytes() {
+        return length;
+    }
+
+    /**
+     * Appends a bucket. Starts must be strictly increasing; a bucket that is not
+     * (e.g. after the wall clock moved backwards) is dropped and false is returned.
+     */
+    boolean append(long startMinute, int samples, int mean, int peak, int impacts) throws IOException {
+        if (out == null || (count > 0 && startMinute <= lastStart)) {
+            return false;
+        }
+        long prevStart = count == 0 ? 0L : lastStart;
+        if (count % INDEX_STRIDE == 0) {
+            addIndex(startMinute, length, prevStart, lastMean, lastPeak);
+        }
+        int n = 0;
+        n = putVarLong(scratch, n, startMinute - prevStart);
+        n = putVarLong(scratch, n, samples);
+        n = putVarLong(scratch, n, zigzag(mean - lastMean));
+        n = putVarLong(scratch, n, zigzag(peak - lastPeak));
+        n = putVarLong(scratch, n, impacts);
+        out.write(scratch, 0, n);
+        length += n;
+        count++;
+        lastStart = startMinute;
+        lastMean = mean;
+        lastPeak = peak;
+        return true;
+    }
+
+    /** Streams every bucket with {@code fromMinute <= start <= toMinute} to the sink, in order. */
+    void query(long fromMinute, long toMinute, Sink sink) throws IOException {
+        if (count == 0 || toMinute < fromMinute || lastStart < fromMinute) {
+            return;
+        }
+        int entry = Math.max(0, floorIndex(fromMinute));
+        try (FileInputStream fis = new FileInputStream(file)) {
+            fis.getChannel().position(indexOffset[entry]);
+            InputStream in = new BufferedInputStream(fis, 8192);
+            long start = indexPrevStart[entry];
+            int mean = indexPrevMean[entry];
+            int peak = indexPrevPeak[entry];
+            int remaining = count - entry * INDEX_STRIDE;
+            for (int i = 0; i < remaining; i++) {
+                start += readVarLong(in);
+                int samples = (int) readVarLong(in);
+                mean += unzigzag(readVarLong(in));
+                peak += unzigzag(readVarLong(in));
+                int impacts = (int) readVarLong(in);
+                if (start > toMinute) {
+                    return;
+                }
+                if (start >= fromMinute) {
+                    sink.accept(start, samples, mean, peak, impacts);
+                }
+            }
+        }
+    }
+
+    /** Rewrites the file keeping only buckets starting at or after {@code minMinute}. */
+    void retain(long minMinute) throws IOException {
+        if (count == 0 || indexStart[0] >= minMinute) {
+            return;
+        }
+        close();
+        File tmp = new File(file.getPath() + ".tmp");
+        writeHeader(tmp);
+        ActivityTierFile compacted = new ActivityTierFile(tmp);
+        compacted.open();
+        final IOException[] failure = new IOException[1];
+        query(minMinute, Long.MAX_VALUE, (start, samples, mean, peak, impacts) -> {
+            try {
+                compacted.append(start, samples, mean, peak, impacts);
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        compacted.close();
+        if (failure[0] != null || !tmp.renameTo(file)) {
+            tmp.delete();
+            open();
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            throw new IOException("Failed to replace " + file);
+        }
+        open();
+    }
+
+    private void resetState() {
+        length = 0L;
+        count = 0;
+        lastStart = Long.MIN_VALUE;
+        lastMean = 0;
+        lastPeak = 0;
+        indexSize = 0;
+    }
+
+    private boolean hasValidHeader() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            return raf.readInt() == MAGIC && raf.readUnsignedByte() == VERSION;
+        }
+    }
+
+    private static void writeHeader(File target) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(target, false))) {
+            os.write(MAGIC >>> 24);
+            os.write(MAGIC >>> 16);
+            os.write(MAGIC >>> 8);
+            os.write(MAGIC);
+            os.write(VERSION);
+        }
+    }
+
+    /** Decodes all complete records and returns the byte length they cover. */
+    private long scan() throws IOException {
+        long offset = HEADER_BYTES;
+        try (FileInputStream fis = new FileInputStream(file)) {
+            fis.getChannel().position(HEADER_BYTES);
+            CountingInput in = new CountingInput(new BufferedInputStream(fis, 8192));
+            while (true) {
+                long prevStart = count == 0 ? 0L : lastStart;
+                long start;
+                int mean;
+                int peak;
+                try {
+                    start = prevStart + readVarLong(in);
+                    readVarLong(in);
+                    mean = lastMean + unzigzag(readVarLong(in));
+                    peak = lastPeak + unzigzag(readVarLong(in));
+                    readVarLong(in);
+                } catch (EOFException e) {
+                    return offset;
+                }
+                if (count > 0 && start <= lastStart) {
+                    return offset; // corrupt tail
+                }
+                if (count % INDEX_STRIDE == 0) {
+                    addIndex(start, offset, prevStart, lastMean, lastPeak);
+                }
+                count++;
+                lastStart = start;
+                lastMean = mean;
+                lastPeak = peak;
+                offset = HEADER_BYTES + in.consumed;
+            }
+        }
+    }
+
+    private void addIndex(long start, long offset, long prevStart, int prevMean, int prevPeak) {
+        if (indexSize == indexStart.length) {
+            int capacity = indexSize * 2;
+            indexStart = Arrays.copyOf(indexStart, capacity);
+            indexOffset = Arrays.copyOf(indexOffset, capacity);
+            indexPrevStart = Arrays.copyOf(indexPrevStart, capacity);
+            indexPrevMean = Arrays.copyOf(indexPrevMean, capacity);
+            indexPrevPeak = Arrays.copyOf(indexPrevPeak, capacity);
+        }
+        indexStart[indexSize] = start;
+        indexOffset[indexSize] = offset;
+        indexPrevStart[indexSize] = prevStart;
+        indexPrevMean[indexSize] = prevMean;
+        indexPrevPeak[indexSize] = prevPeak;
+        indexSize++;
+    }
+
+    /** Last index entry whose first record starts at or before {@code minute}, or -1. */
+    private int floorIndex(long minute) {
+        int lo = 0;
+        int hi = indexSize - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (indexStart[mid] <= minute) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static int putVarLong(byte[] buf, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long zigzag(int value) {
+        return ((long) value << 1) ^ ((long) value >> 63);
+    }
+
+    private static int unzigzag(long value) {
+        return (int) ((value >>> 1) ^ -(value & 1));
+    }
+
+    private static final class CountingInput extends InputStream {
+        private final InputStream in;
+        long consumed;
+
+        CountingInput(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                consumed++;
+            }
+            return b;
+        }
+    }
+}
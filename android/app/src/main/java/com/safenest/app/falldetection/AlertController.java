@@ -0,0 +1,222 @@
+package com.safenest.app.falldetection;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.text.format.DateUtils;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+
+import com.safenest.app.R;
+
+/**
+ * Owns every notification the fall detection service posts.
+ *
+ * Channels, PendingIntents, the launch intent and the check-in and escalation
+ * notifications are all built in {@link #prepare()}, at service start and again when
+ * the locale changes, so posting an alert is a timestamp update and one
+ * {@code notify()} call. Each post records time-to-notify (from detection to notify
+ * returning) in the diagnostics ring. Must be used from the main thread.
+ */
+final class AlertController {
+    private static final String TAG = "AlertController";
+
+    static final int SERVICE_NOTIFICATION_ID = 42;
+    private static final int ALERT_NOTIFICATION_ID = 1337;
+    private static final int ACK_REQUEST_CODE = 2001;
+    private static final int LATE_REQUEST_CODE = 2003;
+    private static final String SERVICE_CHANNEL_ID = "fall_detection_service";
+    private static final String ALERT_CHANNEL_ID = "emergency_alerts_v2";
+
+    private final Context context;
+    private final NotificationManager nm;
+
+    private Notification serviceNotification;
+    private Notification checkInNotification;
+    private Notification escalatedNotification;
+    private PendingIntent lateContentIntent;
+    private Intent launchIntent;
+
+    AlertController(Context context) {
+        this.context = context;
+        this.nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+    }
+
+    /** (Re)builds channels and templates; picks up the current locale's strings. */
+    void prepare() {
+        if (nm != null) {
+            NotificationChannel service = new NotificationChannel(
+                SERVICE_CHANNEL_ID,
+                context.getString(R.string.service_channel_name),
+                NotificationManager.IMPORTANCE_LOW
+            );
+            service.setSound(null, null);
+            nm.createNotificationChannel(service);
+
+            // Importance and vibration are fixed once a channel exists; re-creating
+            // it only refreshes the name, which is what a locale change needs.
+            NotificationChannel alerts = new NotificationChannel(
+                ALERT_CHANNEL_ID,
+                context.getString(R.string.alert_channel_name),
+                NotificationManager.IMPORTANCE_HIGH
+            );
+            alerts.enableVibration(true);
+            alerts.setVibrationPattern(new long[]{300, 150, 300});
+            alerts.setShowBadge(true);
+            alerts.setSound(null, null);
+            nm.createNotificationChannel(alerts);
+        }
+
+        serviceNotification = new NotificationCompat.Builder(context, SERVICE_CHANNEL_ID)
+            .setContentTitle(context.getString(R.string.service_notification_title))
+            .setContentText(context.getString(R.string.service_notification_text))
+            .setSmallIcon(android.R.drawable.stat_notify_more)
+            .setOngoing(true)
+            .build();
+
+        Intent ackIntent = new Intent(context, FallDetectionService.class)
+            .setAction(FallDetectionService.ACTION_FALL_ACK);
+        PendingIntent ackPendingIntent = PendingIntent.getService(
+            context,
+            ACK_REQUEST_CODE,
+            ackIntent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        checkInNotification = new NotificationCompat.Builder(context, ALERT_CHANNEL_ID)
+            .setContentTitle(context.getString(R.string.alert_check_in_title))
+            .setContentText(context.getString(R.string.alert_check_in_text))
+            .setSmallIcon(android.R.drawable.stat_sys_warning)
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setCategory(NotificationCompat.CATEGORY_ALARM)
+            .setAutoCancel(true)
+            .addAction(android.R.drawable.checkbox_on_background,
+                context.getString(R.string.alert_check_in_ack), ackPendingIntent)
+            .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+            .build();
+
+        Intent launch = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
+        if (launch == null) {
+            Log.e(TAG, "Launch intent null");
+            launchIntent = null;
+            escalatedNotification = null;
+            lateContentIntent = null;
+            return;
+        }
+        // A late alert is about an old fall: open the app normally, without the
+        // fall_detected extra that starts the countdown.
+        lateContentIntent = PendingIntent.getActivity(
+            context,
+            LATE_REQUEST_CODE,
+            new Intent(launch).setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP),
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+        launch.putExtra("fall_detected", true);
+
+        Intent content = new Intent(launch).setFlags(
+            Intent.FLAG_ACTIVITY_NEW_TASK |
+            Intent.FLAG_ACTIVITY_CLEAR_TOP |
+            Intent.FLAG_ACTIVITY_SINGLE_TOP
+        );
+        PendingIntent contentIntent = PendingIntent.getActivity(
+            context,
+            ALERT_NOTIFICATION_ID,
+            content,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        escalatedNotification = new NotificationCompat.Builder(context, ALERT_CHANNEL_ID)
+            .setContentTitle(context.getString(R.string.alert_escalated_title))
+            .setContentText(context.getString(R.string.alert_escalated_text))
+            .setPriority(NotificationCompat.PRIORITY_MAX)
+            .setCategory(NotificationCompat.CATEGORY_ALARM)
+            .setSmallIcon(android.R.drawable.stat_sys_warning)
+            .setAutoCancel(true)
+            .setContentIntent(contentIntent)
+            .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+            .setFullScreenIntent(contentIntent, true)
+            .build();
+
+        launchIntent = launch.addFlags(
+            Intent.FLAG_ACTIVITY_NEW_TASK |
+            Intent.FLAG_ACTIVITY_CLEAR_TOP |
+            Intent.FLAG_ACTIVITY_SINGLE_TOP |
+            Intent.FLAG_ACTIVITY_RESET_TASK_IF_NEEDED
+        );
+    }
+
+    Notification serviceNotification() {
+        return serviceNotification;
+    }
+
+    /** Cached launch intent for bringing the app to the front; null if the app has none. */
+    Intent launchIntent() {
+        return launchIntent;
+    }
+
+    /** @param detectedAtNanos {@link SystemClock#elapsedRealtimeNanos()} when the fall was detected */
+    void showCheckIn(long detectedAtNanos) {
+        if (post(checkInNotification)) {
+            DiagnosticsLog.log(DiagnosticsLog.CHECK_IN_SHOWN, micros(detectedAtNanos));
+        }
+    }
+
+    /** @param escalatedAtNanos {@link SystemClock#elapsedRealtimeNanos()} when escalation started */
+    void showEscalated(long escalatedAtNanos) {
+        if (post(escalatedNotification)) {
+            DiagnosticsLog.log(DiagnosticsLog.EMERGENCY_NOTIFIED, micros(escalatedAtNanos));
+        }
+    }
+
+    /**
+     * Tells the user a delayed alert went out for an old fall. Built when posted since
+     * it names the fall time, and has no full-screen intent: there is nothing left to
+     * answer.
+     */
+    void showLate(long impactTime) {
+        if (lateContentIntent == null) {
+            Log.e(TAG, "Alert not prepared");
+            return;
+        }
+        String when = DateUtils.formatDateTime(context, impactTime,
+            DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_TIME);
+        Notification late = new NotificationCompat.Builder(context, ALERT_CHANNEL_ID)
+            .setContentTitle(context.getString(R.string.alert_late_title))
+            .setContentText(context.getString(R.string.alert_late_text, when))
+            .setStyle(new NotificationCompat.BigTextStyle()
+                .bigText(context.getString(R.string.alert_late_text, when)))
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setCategory(NotificationCompat.CATEGORY_STATUS)
+            .setSmallIcon(android.R.drawable.stat_sys_warning)
+            .setAutoCancel(true)
+            .setContentIntent(lateContentIntent)
+            .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+            .build();
+        post(late);
+    }
+
+    void cancel() {
+        if (nm != null) {
+            nm.cancel(ALERT_NOTIFICATION_ID);
+        }
+    }
+
+    private boolean post(Notification notification) {
+        if (nm == null || notification == null) {
+            Log.e(TAG, "Alert not prepared");
+            return false;
+        }
+        notification.when = System.currentTimeMillis();
+        nm.notify(ALERT_NOTIFICATION_ID, notification);
+        return true;
+    }
+
+    private static long micros(long sinceNanos) {
+        return (SystemClock.elapsedRealtimeNanos() - sinceNanos) / 1_000L;
+    }
+}
@@ -0,0 +1,219 @@
+package com.safenest.app.falldetection;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+
+/**
+ * Picks a detection tier from battery level, charging state, power-save/Doze and
+ * thermal status, trading accuracy for battery life without ever switching
+ * detection off.
+ *
+ * Downgrades apply immediately. Upgrades need the battery to clear the threshold by
+ * {@link #BATTERY_HYSTERESIS_PCT} and the better tier to hold for
+ * {@link #UPGRADE_DWELL_MS}, so the service does not flap around a boundary.
+ * Runs on the main thread.
+ */
+final class DetectionGovernor {
+    interface Listener {
+        void onTierChanged(Tier tier);
+    }
+
+    /** One operating point for the detector. Higher level = cheaper, less accurate. */
+    static final class Tier {
+        static final Tier FULL = new Tier(0, "full", 20_000, 0, true);
+        static final Tier BALANCED = new Tier(1, "balanced", 40_000, 1_000_000, true);
+        static final Tier SAVER = new Tier(2, "saver", 50_000, 5_000_000, false);
+        static final Tier CRITICAL = new Tier(3, "critical", 50_000, 10_000_000, false);
+        private static final Tier[] ALL = {FULL, BALANCED, SAVER, CRITICAL};
+
+        final int level;
+        final String name;
+        final int samplingPeriodUs;
+        final int maxReportLatencyUs;
+        final boolean recordActivity;
+
+        private Tier(int level, String name, int samplingPeriodUs, int maxReportLatencyUs, boolean recordActivity) {
+            this.level = level;
+            this.name = name;
+            this.samplingPeriodUs = samplingPeriodUs;
+            this.maxReportLatencyUs = maxReportLatencyUs;
+            this.recordActivity = recordActivity;
+        }
+    }
+
+    // Battery levels at or below which each tier applies (BALANCED, SAVER, CRITICAL).
+    private static final int[] BATTERY_THRESHOLDS = {30, 15, 5};
+    private static final int BATTERY_HYSTERESIS_PCT = 3;
+    private static final long UPGRADE_DWELL_MS = 60_000L;
+
+    private final Context context;
+    private final Listener listener;
+    private final PowerManager powerManager;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable reevaluate = this::evaluate;
+
+    private Tier tier = Tier.FULL;
+    private int batteryLevel = 100;
+    private boolean charging;
+    private int thermalStatus;
+    private long upgradeCandidateSince = -1L;
+    private boolean started;
+
+    private final BroadcastReceiver receiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context ctx, Intent intent) {
+            if (Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction())) {
+                readBattery(intent);
+            }
+            evaluate();
+        }
+    };
+
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+
+    DetectionGovernor(Context context, Listener listener) {
+        this.context = context;
+        this.listener = listener;
+        this.powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+    }
+
+    Tier tier() {
+        return tier;
+    }
+
+    int batteryLevel() {
+        return batteryLevel;
+    }
+
+    boolean isCharging() {
+        return charging;
+    }
+
+    int thermalStatus() {
+        return thermalStatus;
+    }
+
+    /** Registers for state changes and returns the initial tier (without notifying). */
+    Tier start() {
+        if (started) {
+            return tier;
+        }
+        started = true;
+        IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+        filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        filter.addAction(PowerManager.ACTION_DEVICE_IDLE_MODE_CHANGED);
+        Intent sticky = context.registerReceiver(receiver, filter);
+        if (sticky != null) {
+            readBattery(sticky);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && powerManager != null) {
+            thermalStatus = powerManager.getCurrentThermalStatus();
+            thermalListener = status -> {
+                thermalStatus = status;
+                evaluate();
+            };
+            powerManager.addThermalStatusListener(thermalListener);
+        }
+        tier = desiredTier();
+        return tier;
+    }
+
+    void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        handler.removeCallbacks(reevaluate);
+        try {
+            context.unregisterReceiver(receiver);
+        } catch (IllegalArgumentException ignored) {
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && powerManager != null && thermalListener != null) {
+            powerManager.removeThermalStatusListener(thermalListener);
+            thermalListener = null;
+        }
+    }
+
+    private void readBattery(Intent intent) {
+        int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        if (level >= 0 && scale > 0) {
+            batteryLevel = level * 100 / scale;
+        }
+        int status = intent.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        charging = status == BatteryManager.BATTERY_STATUS_CHARGING || status == BatteryManager.BATTERY_STATUS_FULL;
+    }
+
+    private void evaluate() {
+        if (!started) {
+            return;
+        }
+        Tier desired = desiredTier();
+        if (desired.level > tier.level) {
+            upgradeCandidateSince = -1L;
+            handler.removeCallbacks(reevaluate);
+            setTier(desired);
+        } else if (desired.level < tier.level) {
+            long now = SystemClock.elapsedRealtime();
+            if (upgradeCandidateSince < 0) {
+                upgradeCandidateSince = now;
+            }
+            long waited = now - upgradeCandidateSince;
+            if (waited >= UPGRADE_DWELL_MS) {
+                upgradeCandidateSince = -1L;
+                setTier(desired);
+            } else {
+                handler.removeCallbacks(reevaluate);
+                handler.postDelayed(reevaluate, UPGRADE_DWELL_MS - waited);
+            }
+        } else {
+            upgradeCandidateSince = -1L;
+            handler.removeCallbacks(reevaluate);
+        }
+    }
+
+    private void setTier(Tier next) {
+        tier = next;
+        listener.onTierChanged(next);
+    }
+
+    private Tier desiredTier() {
+        int level = charging ? 0 : batteryTierLevel();
+
+        if (powerManager != null && (powerManager.isPowerSaveMode() || powerManager.isDeviceIdleMode())) {
+            level = Math.max(level, Tier.SAVER.level);
+        }
+        if (thermalStatus >= PowerManager.THERMAL_STATUS_CRITICAL) {
+            level = Math.max(level, Tier.CRITICAL.level);
+        } else if (thermalStatus >= PowerManager.THERMAL_STATUS_SEVERE) {
+            level = Math.max(level, Tier.SAVER.level);
+        } else if (thermalStatus >= PowerManager.THERMAL_STATUS_MODERATE) {
+            level = Math.max(level, Tier.BALANCED.level);
+        }
+        return Tier.ALL[level];
+    }
+
+    /** Battery-only tier, using a higher threshold to leave a tier than to enter it. */
+    private int batteryTierLevel() {
+        int level = 0;
+        for (int i = 0; i < BATTERY_THRESHOLDS.length; i++) {
+            int target = i + 1;
+            int threshold = BATTERY_THRESHOLDS[i];
+            if (tier.level >= target) {
+                threshold += BATTERY_HYSTERESIS_PCT;
+            }
+            if (batteryLevel <= threshold) {
+                level = target;
+            }
+        }
+        return level;
+    }
+}
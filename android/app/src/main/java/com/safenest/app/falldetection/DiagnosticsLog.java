@@ -0,0 +1,226 @@
+package com.safenest.app.falldetection;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Binary event log for field diagnostics, cheap enough for the sensor hot path.
+ *
+ * Events are a numeric code plus one int and one long argument, written into a
+ * fixed-size ring that lives in a memory-mapped file. Nothing is formatted when
+ * logging; text is only produced by {@link #dump(PrintWriter)} (dumpsys and the
+ * plugin's exportDiagnostics). Because the ring is a shared mapping, the kernel keeps
+ * the written pages when the process crashes, so the next session still sees the tail.
+ */
+public final class DiagnosticsLog {
+    private static final String TAG = "DiagnosticsLog";
+
+    // Event codes. Keep in sync with NAMES / ARGS below; never renumber.
+    public static final int SESSION_START = 1;
+    public static final int SERVICE_CREATE = 2;
+    public static final int SERVICE_DESTROY = 3;
+    public static final int SENSOR_REGISTERED = 4;
+    public static final int WAKELOCK_ACQUIRED = 5;
+    public static final int WAKELOCK_RELEASED = 6;
+    public static final int IMPACT = 7;
+    public static final int IMPACT_COOLDOWN = 8;
+    public static final int LOW_MOVEMENT = 9;
+    public static final int CHECK_IN_SHOWN = 10;
+    public static final int FALL_EVENT_TO_JS = 11;
+    public static final int ACKNOWLEDGED = 12;
+    public static final int ESCALATION_ALARM_SET = 13;
+    public static final int ESCALATION_ALARM_FIRED = 14;
+    public static final int ESCALATION_RESUMED = 15;
+    public static final int ESCALATED = 16;
+    public static final int EMERGENCY_NOTIFIED = 17;
+    public static final int APP_LAUNCHED = 18;
+    public static final int ACTIVITY_CREATE = 19;
+    public static final int ACTIVITY_INTENT = 20;
+    public static final int SERVICE_AUTO_START = 21;
+    public static final int WIDGET_SOS_ATTEMPT = 22;
+    public static final int WIDGET_SOS_DONE = 23;
+    public static final int TIER_CHANGED = 24;
+    public static final int SMS_DISPATCHED = 25;
+    public static final int SMS_SENT = 26;
+    public static final int SMS_FAILED = 27;
+    public static final int CALL_PLACED = 28;
+
+    private static final int ARG_NONE = 0;
+    private static final int ARG_FLOAT = 1; // int argument holds Float bits
+    private static final int ARG_INT = 2;
+    private static final int ARG_LONG = 3;
+    private static final int ARG_INT_LONG = 4;
+
+    private static final String[] NAMES = {
+        "?", "session_start", "service_create", "service_destroy", "sensor_registered",
+        "wakelock_acquired", "wakelock_released", "impact", "impact_cooldown", "low_movement",
+        "check_in_shown", "fall_event_to_js", "acknowledged", "escalation_alarm_set",
+        "escalation_alarm_fired", "escalation_resumed", "escalated", "emergency_notified",
+        "app_launched", "activity_create", "activity_intent", "service_auto_start",
+        "widget_sos_attempt", "widget_sos_done", "tier_changed", "sms_dispatched",
+        "sms_sent", "sms_failed", "call_placed",
+    };
+    private static final int[] ARGS = {
+        ARG_NONE, ARG_INT, ARG_NONE, ARG_NONE, ARG_INT_LONG,
+        ARG_NONE, ARG_NONE, ARG_FLOAT, ARG_FLOAT, ARG_FLOAT,
+        ARG_LONG, ARG_NONE, ARG_NONE, ARG_INT_LONG,
+        ARG_NONE, ARG_LONG, ARG_NONE, ARG_LONG,
+        ARG_NONE, ARG_NONE, ARG_INT, ARG_NONE,
+        ARG_INT_LONG, ARG_NONE, ARG_INT_LONG, ARG_INT_LONG,
+        ARG_INT_LONG, ARG_INT_LONG, ARG_LONG,
+    };
+    private static final String[] ARG_LABELS = {
+        "", "pid", "", "", "period_us,latency_us",
+        "", "", "mag", "mag", "mag",
+        "notify_us", "", "", "exact,deadline",
+        "", "remaining_ms", "", "notify_us",
+        "", "", "fall|sos", "",
+        "attempt,bridge_ready", "", "tier,battery", "contacts,elapsed_ms",
+        "contact,elapsed_ms", "contact,result", "elapsed_ms",
+    };
+
+    private static final int MAGIC = 0x534E444C; // "SNDL"
+    private static final int HEADER_BYTES = 16; // magic, capacity, next sequence
+    private static final int ENTRY_BYTES = 24;  // time, code, int arg, long arg
+    private static final int CAPACITY = 4096;
+    // How far init() looks past the stored sequence for entries written after it, and
+    // how much a later entry's wall-clock time may run behind an earlier one.
+    private static final int RECOVER_SCAN = 64;
+    private static final long RECOVER_SLACK_MS = 1_000L;
+
+    private static volatile MappedByteBuffer ring;
+    private static final AtomicLong sequence = new AtomicLong();
+
+    private DiagnosticsLog() { }
+
+    /** Maps the ring file; safe to call from every entry point, only the first call works. */
+    public static synchronized void init(Context context) {
+        if (ring != null) {
+            return;
+        }
+        File file = new File(context.getApplicationContext().getFilesDir(), "diagnostics.ring");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long size = HEADER_BYTES + (long) CAPACITY * ENTRY_BYTES;
+            boolean fresh = raf.length() != size;
+            raf.setLength(size);
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (fresh || buffer.getInt(0) != MAGIC || buffer.getInt(4) != CAPACITY) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, CAPACITY);
+                buffer.putLong(8, 0L);
+            }
+            long next = recoverSequence(buffer);
+            buffer.putLong(8, next);
+            sequence.set(next);
+            ring = buffer;
+        } catch (IOException e) {
+            Log.e(TAG, "Diagnostics ring unavailable", e);
+            return;
+        }
+        log(SESSION_START, android.os.Process.myPid(), 0L);
+    }
+
+    /**
+     * Returns the sequence the next entry should get. The header is written after each
+     * entry without ordering between threads, so it can hold a value a few entries
+     * short; entries past it whose timestamps continue the run before it are taken
+     * to be newer and kept.
+     */
+    static long recoverSequence(ByteBuffer buffer) {
+        long next = Math.max(0L, buffer.getLong(8));
+        long prevTime = next > 0 ? buffer.getLong(slot(next - 1)) : 0L;
+        for (int i = 0; i < RECOVER_SCAN; i++) {
+            long time = buffer.getLong(slot(next));
+            if (time == 0L || time < prevTime - RECOVER_SLACK_MS) {
+                break;
+            }
+            prevTime = Math.max(prevTime, time);
+            next++;
+        }
+        return next;
+    }
+
+    private static int slot(long seq) {
+        return HEADER_BYTES + (int) (seq % CAPACITY) * ENTRY_BYTES;
+    }
+
+    public static void log(int code) {
+        log(code, 0, 0L);
+    }
+
+    public static void log(int code, float value) {
+        log(code, Float.floatToRawIntBits(value), 0L);
+    }
+
+    public static void log(int code, long value) {
+        log(code, 0, value);
+    }
+
+    public static void log(int code, int a, long b) {
+        MappedByteBuffer buffer = ring;
+        if (buffer == null) {
+            return;
+        }
+        long seq = sequence.getAndIncrement();
+        int pos = slot(seq);
+        buffer.putLong(pos, System.currentTimeMillis());
+        buffer.putInt(pos + 8, code);
+        buffer.putInt(pos + 12, a);
+        buffer.putLong(pos + 16, b);
+        buffer.putLong(8, seq + 1);
+    }
+
+    /** Decodes the ring, oldest first. Only call off the hot path. */
+    public static void dump(PrintWriter pw) {
+        MappedByteBuffer buffer = ring;
+        if (buffer == null) {
+            pw.println("diagnostics: not initialised");
+            return;
+        }
+        long end = sequence.get();
+        long start = Math.max(0L, end - CAPACITY);
+        SimpleDateFormat fmt = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+        pw.println("diagnostics: " + (end - start) + " of " + end + " events");
+        for (long seq = start; seq < end; seq++) {
+            int pos = slot(seq);
+            long time = buffer.getLong(pos);
+            int code = buffer.getInt(pos + 8);
+            int a = buffer.getInt(pos + 12);
+            long b = buffer.getLong(pos + 16);
+            boolean known = code > 0 && code < NAMES.length;
+            StringBuilder line = new StringBuilder(64)
+                .append(fmt.format(new Date(time)))
+                .append(' ')
+                .append(known ? NAMES[code] : "code_" + code);
+            switch (known ? ARGS[code] : ARG_INT_LONG) {
+                case ARG_FLOAT:
+                    line.append(' ').append(ARG_LABELS[code]).append('=').append(Float.intBitsToFloat(a));
+                    break;
+                case ARG_INT:
+                    line.append(' ').append(ARG_LABELS[code]).append('=').append(a);
+                    break;
+                case ARG_LONG:
+                    line.append(' ').append(ARG_LABELS[code]).append('=').append(b);
+                    break;
+                case ARG_INT_LONG:
+                    line.append(' ').append(known ? ARG_LABELS[code] : "a,b").append('=').append(a).append(',').append(b);
+                    break;
+                default:
+                    break;
+            }
+            pw.println(line);
+        }
+    }
+}
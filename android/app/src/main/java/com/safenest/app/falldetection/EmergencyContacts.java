@@ -0,0 +1,120 @@
+package com.safenest.app.falldetection;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Native copy of the household's emergency contacts, synced from JS so the service
+ * can reach people even when the WebView is not loaded. Stored as a small binary
+ * file (name and phone per contact plus the primary index) and cached in memory.
+ */
+final class EmergencyContacts {
+    private static final String TAG = "EmergencyContacts";
+    private static final String FILE_NAME = "emergency_contacts.bin";
+    private static final int VERSION = 1;
+    private static final int MAX_CONTACTS = 16;
+
+    final String[] names;
+    final String[] phones;
+    final int primary;
+
+    private static EmergencyContacts cached;
+
+    EmergencyContacts(String[] names, String[] phones, int primary) {
+        this.names = names;
+        this.phones = phones;
+        this.primary = primary;
+    }
+
+    int size() {
+        return phones.length;
+    }
+
+    static synchronized EmergencyContacts get(Context context) {
+        if (cached == null) {
+            cached = read(file(context));
+        }
+        return cached;
+    }
+
+    static synchronized void save(Context context, EmergencyContacts contacts) throws IOException {
+        File target = file(context);
+        File tmp = new File(target.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeByte(VERSION);
+            out.writeByte(contacts.size());
+            out.writeByte(contacts.primary);
+            for (int i = 0; i < contacts.size(); i++) {
+                out.writeUTF(contacts.names[i]);
+                out.writeUTF(contacts.phones[i]);
+            }
+        }
+        if (!tmp.renameTo(target)) {
+            tmp.delete();
+            throw new IOException("Failed to replace " + target);
+        }
+        cached = contacts;
+    }
+
+    /** Builds a contact list, dropping entries without a phone number and capping the size. */
+    static EmergencyContacts of(String[] names, String[] phones, int primary) {
+        int n = 0;
+        String[] keptNames = new String[Math.min(phones.length, MAX_CONTACTS)];
+        String[] keptPhones = new String[keptNames.length];
+        int keptPrimary = 0;
+        for (int i = 0; i < phones.length && n < keptPhones.length; i++) {
+            String phone = phones[i] == null ? "" : phones[i].trim();
+            if (phone.isEmpty()) {
+                continue;
+            }
+            if (i == primary) {
+                keptPrimary = n;
+            }
+            keptNames[n] = names[i] == null ? "" : names[i];
+            keptPhones[n] = phone;
+            n++;
+        }
+        return new EmergencyContacts(
+            Arrays.copyOf(keptNames, n),
+            Arrays.copyOf(keptPhones, n),
+            keptPrimary
+        );
+    }
+
+    private static File file(Context context) {
+        return new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+    }
+
+    private static EmergencyContacts read(File file) {
+        if (!file.exists()) {
+            return new EmergencyContacts(new String[0], new String[0], 0);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readUnsignedByte() != VERSION) {
+                throw new IOException("Unknown contacts version");
+            }
+            int count = in.readUnsignedByte();
+            int primary = in.readUnsignedByte();
+            String[] names = new String[count];
+            String[] phones = new String[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = in.readUTF();
+                phones[i] = in.readUTF();
+            }
+            return new EmergencyContacts(names, phones, primary < count ? primary : 0);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read cached contacts", e);
+            return new EmergencyContacts(new String[0], new String[0], 0);
+        }
+    }
+}
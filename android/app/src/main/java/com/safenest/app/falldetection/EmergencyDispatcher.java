@@ -0,0 +1,333 @@
+package com.safenest.app.falldetection;
+
+import android.Manifest;
+import android.app.Activity;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationManager;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.telecom.TelecomManager;
+import android.telephony.SmsManager;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Contacts every cached emergency contact when an escalation fires, without JS.
+ *
+ * All SMS are handed to the radio back to back (SmsManager sends are asynchronous),
+ * so contacts are reached in parallel rather than one after another; the call to the
+ * primary contact is placed right after. Sent/delivered callbacks update a per-contact
+ * status report that is pushed to JS and kept for {@code getLastDispatch()}.
+ * All state is confined to the dispatcher's own thread.
+ *
+ * One instance lives for the whole process rather than with the service: the service
+ * is restarted on every app foreground change (including the launch escalation itself
+ * triggers), and the receiver has to outlive that to see the SMS callbacks.
+ */
+final class EmergencyDispatcher {
+    private static final String TAG = "EmergencyDispatcher";
+    private static final String ACTION_SMS_SENT = "com.safenest.app.ACTION_SMS_SENT";
+    private static final String ACTION_SMS_DELIVERED = "com.safenest.app.ACTION_SMS_DELIVERED";
+    private static final String EXTRA_CONTACT = "contact";
+    private static final int REQUEST_CODE_BASE = 3000;
+    private static final long REPORT_WINDOW_MS = 120_000L;
+    private static final long MAX_LOCATION_AGE_MS = 10 * 60_000L;
+
+    private static final String STATUS_QUEUED = "queued";
+    private static final String STATUS_SENT = "sent";
+    private static final String STATUS_DELIVERED = "delivered";
+    private static final String STATUS_FAILED = "failed";
+    private static final String STATUS_NO_PERMISSION = "no_permission";
+    private static final String STATUS_SKIPPED = "skipped";
+
+    private static EmergencyDispatcher instance;
+
+    private final Context context;
+    private final HandlerThread thread = new HandlerThread("EmergencyDispatch");
+    private final Handler handler;
+    private final Runnable finish = this::finish;
+
+    private EmergencyContacts contacts;
+    private String[] status;
+    private long[] sentMs;
+    private long[] deliveredMs;
+    private int[] errorCode;
+    private long startedAt;
+    private long dispatchedAt;
+    private boolean late;
+    private String callStatus;
+    private boolean receiverRegistered;
+
+    private final BroadcastReceiver receiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context ctx, Intent intent) {
+            int i = intent.getIntExtra(EXTRA_CONTACT, -1);
+            if (status == null || i < 0 || i >= status.length) {
+                return;
+            }
+            long elapsed = SystemClock.elapsedRealtime() - startedAt;
+            if (ACTION_SMS_SENT.equals(intent.getAction())) {
+                if (getResultCode() == Activity.RESULT_OK) {
+                    if (!STATUS_DELIVERED.equals(status[i])) {
+                        status[i] = STATUS_SENT;
+                    }
+                    sentMs[i] = elapsed;
+                    DiagnosticsLog.log(DiagnosticsLog.SMS_SENT, i, elapsed);
+                } else {
+                    status[i] = STATUS_FAILED;
+                    errorCode[i] = getResultCode();
+                    DiagnosticsLog.log(DiagnosticsLog.SMS_FAILED, i, getResultCode());
+                }
+            } else if (ACTION_SMS_DELIVERED.equals(intent.getAction())) {
+                status[i] = STATUS_DELIVERED;
+                deliveredMs[i] = elapsed;
+            }
+            report();
+        }
+    };
+
+    private EmergencyDispatcher(Context context) {
+        this.context = context.getApplicationContext();
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    static synchronized EmergencyDispatcher get(Context context) {
+        if (instance == null) {
+            instance = new EmergencyDispatcher(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Starts a fan-out on the dispatcher thread; returns immediately.
+     *
+     * @param onQueued run on the dispatcher thread once every SMS and the call have
+     *                 been handed to the system (or the attempt failed)
+     */
+    void dispatch(Runnable onQueued) {
+        final long requestedAt = SystemClock.elapsedRealtime();
+        handler.post(() -> runThen(requestedAt, -1L, onQueued));
+    }
+
+    /**
+     * Fan-out for a check-in whose deadline passed long ago (e.g. the phone was off):
+     * the SMS says when the fall happened and that the alert is late, and no call is
+     * placed.
+     */
+    void dispatchLate(long impactTime, Runnable onQueued) {
+        final long requestedAt = SystemClock.elapsedRealtime();
+        handler.post(() -> runThen(requestedAt, impactTime, onQueued));
+    }
+
+    private void runThen(long requestedAt, long lateImpactTime, Runnable onQueued) {
+        try {
+            run(requestedAt, lateImpactTime);
+        } finally {
+            onQueued.run();
+        }
+    }
+
+    private void run(long requestedAt, long lateImpactTime) {
+        finish();
+        late = lateImpactTime >= 0;
+        contacts = EmergencyContacts.get(context);
+        int n = contacts.size();
+        startedAt = requestedAt;
+        status = new String[n];
+        sentMs = new long[n];
+        deliveredMs = new long[n];
+        errorCode = new int[n];
+        callStatus = n == 0 ? "none" : STATUS_QUEUED;
+        if (n == 0) {
+            Log.e(TAG, "No cached emergency contacts");
+            report();
+            return;
+        }
+
+        String message = buildMessage(lastKnownLocation(), lateImpactTime);
+        if (hasPermission(Manifest.permission.SEND_SMS)) {
+            registerReceiver();
+            SmsManager sms = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                ? context.getSystemService(SmsManager.class)
+                : SmsManager.getDefault();
+            ArrayList<String> parts = sms.divideMessage(message);
+            for (int i = 0; i < n; i++) {
+                status[i] = STATUS_QUEUED;
+                try {
+                    sendSms(sms, contacts.phones[i], parts, i);
+                } catch (Exception e) {
+                    Log.e(TAG, "SMS dispatch failed for contact " + i, e);
+                    status[i] = STATUS_FAILED;
+                }
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                status[i] = STATUS_NO_PERMISSION;
+            }
+        }
+        dispatchedAt = SystemClock.elapsedRealtime() - startedAt;
+        DiagnosticsLog.log(DiagnosticsLog.SMS_DISPATCHED, n, dispatchedAt);
+
+        callStatus = late ? STATUS_SKIPPED : placeCall(contacts.phones[contacts.primary]);
+        report();
+        handler.postDelayed(finish, REPORT_WINDOW_MS);
+    }
+
+    private void sendSms(SmsManager sms, String phone, ArrayList<String> parts, int contact) {
+        PendingIntent sent = callbackIntent(ACTION_SMS_SENT, contact, 0);
+        PendingIntent delivered = callbackIntent(ACTION_SMS_DELIVERED, contact, 1);
+        if (parts.size() == 1) {
+            sms.sendTextMessage(phone, null, parts.get(0), sent, delivered);
+            return;
+        }
+        // Only the final part reports back, so status reflects the whole message.
+        ArrayList<PendingIntent> sentIntents = new ArrayList<>(parts.size());
+        ArrayList<PendingIntent> deliveryIntents = new ArrayList<>(parts.size());
+        for (int p = 0; p < parts.size(); p++) {
+            boolean last = p == parts.size() - 1;
+            sentIntents.add(last ? sent : null);
+            deliveryIntents.add(last ? delivered : null);
+        }
+        sms.sendMultipartTextMessage(phone, null, parts, sentIntents, deliveryIntents);
+    }
+
+    private PendingIntent callbackIntent(String action, int contact, int kind) {
+        Intent intent = new Intent(action).setPackage(context.getPackageName()).putExtra(EXTRA_CONTACT, contact);
+        return PendingIntent.getBroadcast(
+            context,
+            REQUEST_CODE_BASE + contact * 2 + kind,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    private String placeCall(String phone) {
+        if (!hasPermission(Manifest.permission.CALL_PHONE)) {
+            return STATUS_NO_PERMISSION;
+        }
+        try {
+            // TelecomManager works from a background service where startActivity(ACTION_CALL) may be blocked.
+            TelecomManager telecom = (TelecomManager) context.getSystemService(Context.TELECOM_SERVICE);
+            telecom.placeCall(Uri.fromParts("tel", phone, null), null);
+            DiagnosticsLog.log(DiagnosticsLog.CALL_PLACED, SystemClock.elapsedRealtime() - startedAt);
+            return "placed";
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to place emergency call", e);
+            return STATUS_FAILED;
+        }
+    }
+
+    private Location lastKnownLocation() {
+        if (!hasPermission(Manifest.permission.ACCESS_FINE_LOCATION)
+                && !hasPermission(Manifest.permission.ACCESS_COARSE_LOCATION)) {
+            return null;
+        }
+        LocationManager lm = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+        if (lm == null) {
+            return null;
+        }
+        Location best = null;
+        try {
+            for (String provider : lm.getProviders(true)) {
+                Location l = lm.getLastKnownLocation(provider);
+                if (l != null && (best == null || l.getTime() > best.getTime())) {
+                    best = l;
+                }
+            }
+        } catch (SecurityException e) {
+            Log.e(TAG, "Location permission revoked", e);
+        }
+        return best;
+    }
+
+    private static String buildMessage(Location location, long lateImpactTime) {
+        StringBuilder sb;
+        if (lateImpactTime >= 0) {
+            String when = new SimpleDateFormat("MMM d, HH:mm", Locale.US).format(new Date(lateImpactTime));
+            sb = new StringBuilder("SafeNest alert (delayed): a fall was detected at ").append(when)
+                .append(" and there was no response. The phone was off or offline, so this alert is late.");
+        } else {
+            sb = new StringBuilder("SafeNest alert: a fall was detected and there was no response.");
+        }
+        if (location != null) {
+            sb.append(String.format(Locale.US, " %s: https://maps.google.com/?q=%.6f,%.6f",
+                lateImpactTime >= 0 ? "Current location" : "Location",
+                location.getLatitude(), location.getLongitude()));
+            long age = System.currentTimeMillis() - location.getTime();
+            if (age > MAX_LOCATION_AGE_MS) {
+                sb.append(" (").append(age / 60_000L).append(" min old)");
+            }
+        } else {
+            sb.append(" Location unavailable.");
+        }
+        return sb.toString();
+    }
+
+    private boolean hasPermission(String permission) {
+        return ContextCompat.checkSelfPermission(context, permission) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    private void registerReceiver() {
+        if (receiverRegistered) {
+            return;
+        }
+        IntentFilter filter = new IntentFilter(ACTION_SMS_SENT);
+        filter.addAction(ACTION_SMS_DELIVERED);
+        ContextCompat.registerReceiver(context, receiver, filter, null, handler, ContextCompat.RECEIVER_NOT_EXPORTED);
+        receiverRegistered = true;
+    }
+
+    private void finish() {
+        handler.removeCallbacks(finish);
+        if (receiverRegistered) {
+            context.unregisterReceiver(receiver);
+            receiverRegistered = false;
+        }
+    }
+
+    private void report() {
+        JSArray list = new JSArray();
+        for (int i = 0; i < status.length; i++) {
+            JSObject c = new JSObject();
+            c.put("name", contacts.names[i]);
+            c.put("phone", contacts.phones[i]);
+            c.put("primary", i == contacts.primary);
+            c.put("status", status[i]);
+            if (sentMs[i] > 0) {
+                c.put("sentMs", sentMs[i]);
+            }
+            if (deliveredMs[i] > 0) {
+                c.put("deliveredMs", deliveredMs[i]);
+            }
+            if (errorCode[i] != 0) {
+                c.put("errorCode", errorCode[i]);
+            }
+            list.put(c);
+        }
+        JSObject data = new JSObject();
+        data.put("dispatchedMs", dispatchedAt);
+        data.put("late", late);
+        data.put("call", callStatus);
+        data.put("contacts", list);
+        FallDetectionPlugin.notifyDispatchToJs(data.toString());
+    }
+}
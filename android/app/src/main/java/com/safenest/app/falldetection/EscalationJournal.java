@@ -0,0 +1,159 @@
+package com.safenest.app.falldetection;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the escalation state machine, so an in-flight check-in
+ * survives the process being killed.
+ *
+ * Each transition is one fixed-size record (type, timestamp, deadline, CRC32) that is
+ * fsync'd as it is made. Replaying the file yields the current state; a torn or
+ * corrupt trailing record is dropped and the file rewritten from the replayed state.
+ * Once the state machine is back at rest and the file has grown past
+ * {@link #COMPACT_RECORDS}, it is truncated.
+ */
+final class EscalationJournal {
+    private static final String TAG = "EscalationJournal";
+
+    static final int IDLE = 0;
+    static final int AWAITING_RESPONSE = 1;
+    static final int ESCALATED = 2;
+
+    private static final byte RECORD_CHECK_IN = 1;
+    private static final byte RECORD_ACK = 2;
+    private static final byte RECORD_ESCALATED = 3;
+    private static final int RECORD_BYTES = 1 + 8 + 8 + 4;
+    private static final int COMPACT_RECORDS = 64;
+
+    private final File file;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private final CRC32 crc = new CRC32();
+    private int records;
+
+    private int phase = IDLE;
+    private long impactTime;
+    private long deadline;
+
+    EscalationJournal(File file) {
+        this.file = file;
+    }
+
+    int phase() {
+        return phase;
+    }
+
+    long impactTime() {
+        return impactTime;
+    }
+
+    long deadline() {
+        return deadline;
+    }
+
+    /** Replays the journal into memory. Safe to call on a missing or damaged file. */
+    void load() {
+        phase = IDLE;
+        records = 0;
+        if (!file.exists()) {
+            return;
+        }
+        boolean damaged = file.length() % RECORD_BYTES != 0;
+        byte[] buf = new byte[RECORD_BYTES];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                in.readFully(buf);
+                crc.reset();
+                crc.update(buf, 0, RECORD_BYTES - 4);
+                ByteBuffer bb = ByteBuffer.wrap(buf);
+                byte type = bb.get();
+                long time = bb.getLong();
+                long recordDeadline = bb.getLong();
+                if (bb.getInt() != (int) crc.getValue()) {
+                    Log.e(TAG, "Corrupt record " + records + "; ignoring tail");
+                    damaged = true;
+                    break;
+                }
+                apply(type, time, recordDeadline);
+                records++;
+            }
+        } catch (EOFException e) {
+            // End of journal (possibly a torn final record).
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read journal", e);
+        }
+        if (damaged) {
+            // Later appends must not land behind a torn record.
+            if (phase == AWAITING_RESPONSE) {
+                writeRecord(RECORD_CHECK_IN, impactTime, deadline, false);
+            } else if (!file.delete()) {
+                Log.e(TAG, "Failed to reset damaged journal");
+            }
+            records = phase == AWAITING_RESPONSE ? 1 : 0;
+        }
+    }
+
+    void checkInStarted(long now, long escalationDeadline) {
+        write(RECORD_CHECK_IN, now, escalationDeadline);
+    }
+
+    void acknowledged(long now) {
+        write(RECORD_ACK, now, 0L);
+    }
+
+    void escalated(long now) {
+        write(RECORD_ESCALATED, now, 0L);
+    }
+
+    private void apply(byte type, long time, long recordDeadline) {
+        switch (type) {
+            case RECORD_CHECK_IN:
+                phase = AWAITING_RESPONSE;
+                impactTime = time;
+                deadline = recordDeadline;
+                break;
+            case RECORD_ACK:
+                phase = IDLE;
+                break;
+            case RECORD_ESCALATED:
+                phase = ESCALATED;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void write(byte type, long time, long recordDeadline) {
+        apply(type, time, recordDeadline);
+        // Only truncate at rest: a pending check-in must never be dropped.
+        boolean compact = type != RECORD_CHECK_IN && records >= COMPACT_RECORDS;
+        if (writeRecord(type, time, recordDeadline, !compact)) {
+            records = compact ? 1 : records + 1;
+        }
+    }
+
+    private boolean writeRecord(byte type, long time, long recordDeadline, boolean append) {
+        record.clear();
+        record.put(type).putLong(time).putLong(recordDeadline);
+        crc.reset();
+        crc.update(record.array(), 0, RECORD_BYTES - 4);
+        record.putInt((int) crc.getValue());
+        try (FileOutputStream out = new FileOutputStream(file, append)) {
+            out.write(record.array(), 0, RECORD_BYTES);
+            out.getFD().sync();
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to append journal record", e);
+            return false;
+        }
+    }
+}
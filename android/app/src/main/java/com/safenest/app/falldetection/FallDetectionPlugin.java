@@ -1,16 +1,33 @@
 package com.safenest.app.falldetection;
 
+import android.Manifest;
+import android.app.AlarmManager;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.net.Uri;
 import android.os.Build;
+import android.provider.Settings;
 import com.getcapacitor.Bridge;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
+import com.getcapacitor.annotation.Permission;
 
-@CapacitorPlugin(name = "FallDetection")
+import org.json.JSONObject;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+@CapacitorPlugin(
+    name = "FallDetection",
+    permissions = {
+        @Permission(alias = "emergency", strings = { Manifest.permission.SEND_SMS, Manifest.permission.CALL_PHONE })
+    }
+)
 public class FallDetectionPlugin extends Plugin {
     private static final String PREFS_NAME = "safenest_prefs";
     private static final String FALL_DETECTION_ENABLED = "fall_detection_enabled";
@@ -51,7 +68,198 @@ public class FallDetectionPlugin extends Plugin {
         }
     }
 
+    /**
+     * The user turned fall detection off. Unlike {@link #stop}, which the app also
+     * calls on every foreground change and which leaves a pending check-in armed to
+     * survive the restart, this settles the check-in so its alarm cannot bring the
+     * service back and escalate.
+     */
+    @PluginMethod
+    public void disable(PluginCall call) {
+        getBridge().executeOnMainThread(() -> {
+            try {
+                FallDetectionService.acknowledge(getContext());
+                getContext().stopService(new Intent(getContext(), FallDetectionService.class));
+
+                SharedPreferences prefs = getContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                prefs.edit().putBoolean(FALL_DETECTION_ENABLED, false).apply();
+
+                call.resolve();
+            } catch (Exception e) {
+                call.reject("Failed to disable fall detection: " + e.getMessage());
+            }
+        });
+    }
+
+    /** "I'm OK" from the app's own countdown: settles the native check-in too. */
+    @PluginMethod
+    public void acknowledge(PluginCall call) {
+        getBridge().executeOnMainThread(() -> {
+            try {
+                FallDetectionService.acknowledge(getContext());
+                call.resolve();
+            } catch (Exception e) {
+                call.reject("Failed to acknowledge fall: " + e.getMessage());
+            }
+        });
+    }
+
+    @PluginMethod
+    public void getActivityHistory(PluginCall call) {
+        Long from = call.getLong("from");
+        Long to = call.getLong("to");
+        if (from == null || to == null) {
+            call.reject("from and to are required");
+            return;
+        }
+        String res = call.getString("resolution", "auto");
+        int resolution;
+        if ("minute".equals(res)) {
+            resolution = ActivityHistoryStore.RESOLUTION_MINUTE;
+        } else if ("hour".equals(res)) {
+            resolution = ActivityHistoryStore.RESOLUTION_HOUR;
+        } else if ("day".equals(res)) {
+            resolution = ActivityHistoryStore.RESOLUTION_DAY;
+        } else {
+            resolution = ActivityHistoryStore.autoResolution(from, to);
+        }
+
+        try {
+            ActivityHistoryStore.ActivityHistory history =
+                ActivityHistoryStore.get(getContext()).query(from, to, resolution);
+            JSArray start = new JSArray();
+            JSArray samples = new JSArray();
+            JSArray mean = new JSArray();
+            JSArray peak = new JSArray();
+            JSArray impacts = new JSArray();
+            for (int i = 0; i < history.size; i++) {
+                start.put(history.start[i]);
+                samples.put(history.samples[i]);
+                mean.put(history.mean[i] / 1000.0);
+                peak.put(history.peak[i] / 1000.0);
+                impacts.put(history.impacts[i]);
+            }
+
+            JSObject ret = new JSObject();
+            ret.put("resolution", resolution == ActivityHistoryStore.RESOLUTION_MINUTE ? "minute"
+                : resolution == ActivityHistoryStore.RESOLUTION_HOUR ? "hour" : "day");
+            ret.put("start", start);
+            ret.put("samples", samples);
+            ret.put("mean", mean);
+            ret.put("peak", peak);
+            ret.put("impacts", impacts);
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Failed to read activity history: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void exportDiagnostics(PluginCall call) {
+        DiagnosticsLog.init(getContext());
+        StringWriter out = new StringWriter();
+        PrintWriter pw = new PrintWriter(out);
+        DiagnosticsLog.dump(pw);
+        pw.flush();
+
+        JSObject ret = new JSObject();
+        ret.put("log", out.toString());
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void getDetectionTier(PluginCall call) {
+        String json = lastTierJson;
+        if (json == null) {
+            call.resolve(new JSObject());
+            return;
+        }
+        try {
+            call.resolve(new JSObject(json));
+        } catch (Exception e) {
+            call.reject("Failed to read detection tier: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void setEmergencyContacts(PluginCall call) {
+        JSArray contacts = call.getArray("contacts");
+        if (contacts == null) {
+            call.reject("contacts is required");
+            return;
+        }
+        try {
+            String[] names = new String[contacts.length()];
+            String[] phones = new String[contacts.length()];
+            int primary = 0;
+            for (int i = 0; i < contacts.length(); i++) {
+                JSONObject c = contacts.getJSONObject(i);
+                names[i] = c.optString("name", "");
+                phones[i] = c.optString("phone", "");
+                if (c.optBoolean("isPrimary", false)) {
+                    primary = i;
+                }
+            }
+            EmergencyContacts next = EmergencyContacts.of(names, phones, primary);
+            // An empty list only replaces cached contacts when the caller says it is a
+            // loaded result, not state that has not arrived yet.
+            if (next.size() == 0 && !call.getBoolean("allowEmpty", false)
+                    && EmergencyContacts.get(getContext()).size() > 0) {
+                call.reject("Refusing to clear emergency contacts without allowEmpty");
+                return;
+            }
+            EmergencyContacts.save(getContext(), next);
+            call.resolve();
+        } catch (Exception e) {
+            call.reject("Failed to save emergency contacts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Escalation alarms must be exact to start the service from the background, and
+     * on Android 13+ the permission is off by default. Opens the system settings page
+     * when it is missing; resolves with whether it is currently granted.
+     */
+    @PluginMethod
+    public void requestExactAlarmPermission(PluginCall call) {
+        JSObject ret = new JSObject();
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S) {
+            ret.put("granted", true);
+            call.resolve(ret);
+            return;
+        }
+        try {
+            AlarmManager am = (AlarmManager) getContext().getSystemService(Context.ALARM_SERVICE);
+            boolean granted = am != null && am.canScheduleExactAlarms();
+            if (!granted) {
+                Intent intent = new Intent(Settings.ACTION_REQUEST_SCHEDULE_EXACT_ALARM)
+                    .setData(Uri.parse("package:" + getContext().getPackageName()));
+                getActivity().startActivity(intent);
+            }
+            ret.put("granted", granted);
+            call.resolve(ret);
+        } catch (Exception e) {
+            call.reject("Failed to request exact alarm permission: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void getLastDispatch(PluginCall call) {
+        String json = lastDispatchJson;
+        if (json == null) {
+            call.resolve(new JSObject());
+            return;
+        }
+        try {
+            call.resolve(new JSObject(json));
+        } catch (Exception e) {
+            call.reject("Failed to read dispatch status: " + e.getMessage());
+        }
+    }
+
     private static Bridge bridgeRef;
+    private static volatile String lastTierJson;
+    private static volatile String lastDispatchJson;
 
     public static void notifyFallToJs() {
         if (bridgeRef != null) {
@@ -59,6 +267,25 @@ public class FallDetectionPlugin extends Plugin {
         }
     }
 
+    public static void notifyTierToJs(String tier, int batteryLevel, boolean charging, int thermalStatus) {
+        JSObject data = new JSObject();
+        data.put("tier", tier);
+        data.put("batteryLevel", batteryLevel);
+        data.put("charging", charging);
+        data.put("thermalStatus", thermalStatus);
+        lastTierJson = data.toString();
+        if (bridgeRef != null) {
+            bridgeRef.triggerWindowJSEvent("detectionTierChanged", lastTierJson);
+        }
+    }
+
+    public static void notifyDispatchToJs(String json) {
+        lastDispatchJson = json;
+        if (bridgeRef != null) {
+            bridgeRef.triggerWindowJSEvent("emergencyDispatchStatus", json);
+        }
+    }
+
     @Override
     public void load() {
         super.load();
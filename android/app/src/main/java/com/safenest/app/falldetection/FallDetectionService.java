@@ -1,105 +1,193 @@
 package com.safenest.app.falldetection;
 
-import android.app.Notification;
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
+import android.app.AlarmManager;
 import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
+import android.content.res.Configuration;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
+import android.hardware.SensorEventListener2;
 import android.hardware.SensorManager;
+import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
+import android.os.LocaleList;
 import android.os.Looper;
 import android.os.PowerManager;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
-import androidx.core.app.NotificationCompat;
 
-public class FallDetectionService extends Service implements SensorEventListener {
+import com.safenest.app.WidgetStatusPublisher;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
+public class FallDetectionService extends Service implements SensorEventListener2 {
     private static final String TAG = "FallDetection";
 
-    private static final float IMPACT_THRESHOLD = 40.0f;
-    private static final float LOW_ACCELERATION_THRESHOLD = 5.0f;
-    private static final long INACTIVITY_WINDOW_MS = 1000L;
     private static final long ESCALATION_DELAY_MS = 15_000L;
-    private static final long COOLDOWN_MS = 5_000L; // 15 seconds
-    private static final String ACTION_FALL_ACK = "com.safenest.app.ACTION_FALL_ACK";
-    private static final int ALERT_NOTIFICATION_ID = 1337;
+    private static final long MIN_RESPONSE_WINDOW_MS = 10_000L;
+    // A resumed check-in this far past its deadline is reported as a late alert.
+    private static final long STALE_ESCALATION_MS = 10 * 60_000L;
+    // Upper bound on waiting for the sensor FIFO to drain before a tier change applies.
+    private static final long FLUSH_TIMEOUT_MS = 2_000L;
+    static final String ACTION_FALL_ACK = "com.safenest.app.ACTION_FALL_ACK";
+    private static final String ACTION_ESCALATE = "com.safenest.app.ACTION_ESCALATE";
+    private static final int ESCALATION_ALARM_REQUEST_CODE = 2002;
+
+    // Main thread only; set while the service is between onCreate and onDestroy.
+    private static FallDetectionService running;
+    // Main thread only; a dispatch has started but is not journaled yet. Process-wide,
+    // since the service can be restarted before the dispatcher gets to it.
+    private static boolean escalationInFlight;
 
     private SensorManager sensorManager;
     private Sensor accelSensor;
+    private Sensor wakeUpAccelSensor;
     private PowerManager.WakeLock wakeLock;
     private final Handler handler = new Handler(Looper.getMainLooper());
     private Runnable escalationTask;
-    private long lastImpactTime = 0L;
-    private long lastAlertTime = 0L;
-    private boolean waitingForResponse = false;
+    private final Runnable reregisterTask = this::reregisterAccelerometer;
+    private boolean reregisterPending;
+    private final FallDetector detector = new FallDetector(new FallDetector.Config());
+    private ActivityRecorder activityRecorder;
+    private EscalationJournal journal;
+    private WidgetStatusPublisher widgetStatus;
+    private DetectionGovernor governor;
+    private EmergencyDispatcher dispatcher;
+    private AlertController alerts;
+    private LocaleList locales;
+    private DetectionGovernor.Tier tier = DetectionGovernor.Tier.FULL;
+    private boolean sensorDegraded = false;
 
     @Override
     public void onCreate() {
         super.onCreate();
-        Log.d(TAG, "onCreate");
+        DiagnosticsLog.init(this);
+        DiagnosticsLog.log(DiagnosticsLog.SERVICE_CREATE);
+        running = this;
+        activityRecorder = new ActivityRecorder(ActivityHistoryStore.get(this));
+        journal = new EscalationJournal(journalFile(this));
+        journal.load();
+        widgetStatus = new WidgetStatusPublisher(this);
+        dispatcher = EmergencyDispatcher.get(this);
+        alerts = new AlertController(this);
+        alerts.prepare();
+        locales = getResources().getConfiguration().getLocales();
+
+        governor = new DetectionGovernor(this, this::onTierChanged);
+        tier = governor.start();
+        reportTier();
+
+        // Only held in the full tier; batching tiers use the wake-up accelerometer so
+        // the CPU can suspend between batches. Escalation deadlines are backed by
+        // exact alarms and do not depend on it.
+        PowerManager pm = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        if (pm != null) {
+            wakeLock = pm.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "FallDetection::wakelock");
+        }
 
         sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
         if (sensorManager != null) {
             accelSensor = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+            wakeUpAccelSensor = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER, true);
             if (accelSensor != null) {
-                try {
-                    // Use GAME sampling to avoid high-sampling-rate permission issues while staying responsive
-                    sensorManager.registerListener(this, accelSensor, SensorManager.SENSOR_DELAY_GAME);
-                    Log.d(TAG, "Accelerometer registered (GAME rate)");
-                } catch (SecurityException se) {
-                    Log.e(TAG, "Sensor registration failed; falling back to NORMAL", se);
-                    try {
-                        sensorManager.registerListener(this, accelSensor, SensorManager.SENSOR_DELAY_NORMAL);
-                        Log.d(TAG, "Accelerometer registered (NORMAL rate fallback)");
-                    } catch (Exception e) {
-                        Log.e(TAG, "Accelerometer registration failed", e);
-                    }
-                }
+                registerAccelerometer();
             } else {
                 Log.e(TAG, "Accelerometer not found");
+                sensorDegraded = true;
             }
-        }
-
-        PowerManager pm = (PowerManager) getSystemService(Context.POWER_SERVICE);
-        if (pm != null) {
-            wakeLock = pm.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "FallDetection::wakelock");
-            wakeLock.acquire();
-            Log.d(TAG, "WakeLock acquired");
+        } else {
+            sensorDegraded = true;
         }
 
         startForegroundWithNotification();
+        widgetStatus.setState(monitoringState());
+        resumeEscalation();
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         if (intent != null && ACTION_FALL_ACK.equals(intent.getAction())) {
-            Log.d(TAG, "User acknowledged they're OK");
-            waitingForResponse = false;
-            cancelEscalation();
-            cancelAlertNotification();
+            onAcknowledged();
+        } else if (intent != null && ACTION_ESCALATE.equals(intent.getAction())) {
+            DiagnosticsLog.log(DiagnosticsLog.ESCALATION_ALARM_FIRED);
+            escalate();
         }
         return START_STICKY;
     }
 
     @Override
     public void onDestroy() {
-        Log.d(TAG, "onDestroy");
+        DiagnosticsLog.log(DiagnosticsLog.SERVICE_DESTROY);
+        running = null;
         if (sensorManager != null) {
             sensorManager.unregisterListener(this);
         }
+        handler.removeCallbacks(reregisterTask);
+        reregisterPending = false;
+        // Only drop the in-process timer: a pending escalation stays journaled and
+        // its alarm stays armed, so it still fires if the service is not restarted.
+        cancelEscalationTimer();
+        governor.stop();
+        activityRecorder.close();
+        widgetStatus.setState(WidgetStatusPublisher.STATE_OFF);
+        holdWakeLock(false);
+        super.onDestroy();
+    }
+
+    /**
+     * Applies an "I'm OK" given in the app. Goes to the running service when there is
+     * one; otherwise the journal, alarm and notification are settled directly, so a
+     * pending check-in cannot escalate later. Must be called on the main thread.
+     */
+    static void acknowledge(Context context) {
+        if (running != null) {
+            running.onAcknowledged();
+            return;
+        }
+        EscalationJournal journal = new EscalationJournal(journalFile(context));
+        journal.load();
+        if (journal.phase() != EscalationJournal.IDLE) {
+            DiagnosticsLog.init(context);
+            DiagnosticsLog.log(DiagnosticsLog.ACKNOWLEDGED);
+            journal.acknowledged(System.currentTimeMillis());
+        }
+        AlarmManager am = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (am != null) {
+            am.cancel(escalationAlarmIntent(context));
+        }
+        new AlertController(context).cancel();
+    }
+
+    private void onAcknowledged() {
+        if (journal.phase() != EscalationJournal.IDLE) {
+            DiagnosticsLog.log(DiagnosticsLog.ACKNOWLEDGED);
+            journal.acknowledged(System.currentTimeMillis());
+        }
+        detector.clearWaiting();
         cancelEscalation();
-        if (wakeLock != null && wakeLock.isHeld()) {
-            wakeLock.release();
-            Log.d(TAG, "WakeLock released");
+        alerts.cancel();
+        widgetStatus.setState(monitoringState());
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        if (!newConfig.getLocales().equals(locales)) {
+            locales = newConfig.getLocales();
+            alerts.prepare();
         }
-        super.onDestroy();
+    }
+
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter pw, String[] args) {
+        DiagnosticsLog.dump(pw);
     }
 
     @Nullable
@@ -115,209 +203,280 @@ public class FallDetectionService extends Service implements SensorEventListener
         float az = event.values[2];
         float mag = (float) Math.sqrt(ax * ax + ay * ay + az * az);
 
-        long now = System.currentTimeMillis();
-
-        if (mag > IMPACT_THRESHOLD && !waitingForResponse) {
-            // Enforce cooldown period to avoid repeated alerts
-            if (now - lastAlertTime < COOLDOWN_MS) {
-                Log.d(TAG, "Impact ignored (cooldown): " + mag);
-                return;
-            }
-            lastImpactTime = now;
-            lastAlertTime = now;
-            waitingForResponse = true;
-            Log.d(TAG, "Impact detected: " + mag);
-            notifyFall();
-            return;
+        // Batching tiers deliver samples up to maxReportLatency late, so time each one
+        // from its own sensor timestamp rather than from when the batch arrived.
+        long now = System.currentTimeMillis() - (SystemClock.elapsedRealtimeNanos() - event.timestamp) / 1_000_000L;
+        if (tier.recordActivity) {
+            activityRecorder.onSample(now, mag);
         }
-
-        if (waitingForResponse && lastImpactTime > 0) {
-            long dt = now - lastImpactTime;
-            if (dt <= INACTIVITY_WINDOW_MS && mag < LOW_ACCELERATION_THRESHOLD) {
-                Log.d(TAG, "Low movement after impact: " + mag);
-            }
-            if (dt > INACTIVITY_WINDOW_MS) {
-                lastImpactTime = 0L;
-            }
+        widgetStatus.onHeartbeat(now);
+
+        switch (detector.onSample(now, mag)) {
+            case FallDetector.EVENT_IMPACT:
+                activityRecorder.onImpact();
+                DiagnosticsLog.log(DiagnosticsLog.IMPACT, mag);
+                notifyFall(now);
+                break;
+            case FallDetector.EVENT_IMPACT_COOLDOWN:
+                DiagnosticsLog.log(DiagnosticsLog.IMPACT_COOLDOWN, mag);
+                break;
+            case FallDetector.EVENT_LOW_MOVEMENT:
+                DiagnosticsLog.log(DiagnosticsLog.LOW_MOVEMENT, mag);
+                break;
+            default:
+                break;
         }
     }
 
     @Override
     public void onAccuracyChanged(Sensor sensor, int accuracy) { }
 
-    private void startForegroundWithNotification() {
-        String channelId = "fall_detection_service";
-        NotificationManager nm = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        if (nm != null) {
-            NotificationChannel channel = new NotificationChannel(
-                channelId,
-                "Fall Detection Service",
-                NotificationManager.IMPORTANCE_LOW
-            );
-            channel.setSound(null, null);
-            nm.createNotificationChannel(channel);
+    @Override
+    public void onFlushCompleted(Sensor sensor) {
+        if (reregisterPending) {
+            reregisterAccelerometer();
         }
+    }
 
-        Notification notification = new NotificationCompat.Builder(this, channelId)
-            .setContentTitle("SafeNest fall detection active")
-            .setContentText("Monitoring for falls")
-            .setSmallIcon(android.R.drawable.stat_notify_more)
-            .setOngoing(true)
-            .build();
+    private void registerAccelerometer() {
+        sensorManager.unregisterListener(this);
+        // A wake-up sensor wakes the CPU when its FIFO must be flushed, so batching
+        // tiers can drop the wakelock and still get every sample, including in Doze.
+        // Without one, batching still happens but the wakelock has to stay.
+        boolean batchAsleep = tier.maxReportLatencyUs > 0 && wakeUpAccelSensor != null;
+        Sensor sensor = batchAsleep ? wakeUpAccelSensor : accelSensor;
+        try {
+            // Tier periods stay at or below GAME rate to avoid high-sampling-rate permission issues
+            sensorManager.registerListener(this, sensor, tier.samplingPeriodUs, tier.maxReportLatencyUs);
+            sensorDegraded = false;
+            DiagnosticsLog.log(DiagnosticsLog.SENSOR_REGISTERED, tier.samplingPeriodUs, tier.maxReportLatencyUs);
+            holdWakeLock(!batchAsleep);
+        } catch (SecurityException se) {
+            Log.e(TAG, "Sensor registration failed; falling back to NORMAL", se);
+            sensorDegraded = true;
+            try {
+                sensorManager.registerListener(this, accelSensor, SensorManager.SENSOR_DELAY_NORMAL);
+                DiagnosticsLog.log(DiagnosticsLog.SENSOR_REGISTERED, 200_000, 0L);
+            } catch (Exception e) {
+                Log.e(TAG, "Accelerometer registration failed", e);
+            }
+            holdWakeLock(true);
+        }
+    }
 
-        startForeground(42, notification);
+    /**
+     * Applies a new tier without losing samples: re-registering drops whatever is still
+     * in the sensor FIFO, up to maxReportLatency worth in the batching tiers, so the
+     * FIFO is flushed to us first and the switch happens in {@link #onFlushCompleted}.
+     */
+    private void reregisterAfterFlush() {
+        if (reregisterPending) {
+            // registerAccelerometer() reads the current tier when the flush completes.
+            return;
+        }
+        reregisterPending = true;
+        handler.postDelayed(reregisterTask, FLUSH_TIMEOUT_MS);
+        if (!sensorManager.flush(this)) {
+            reregisterAccelerometer();
+        }
     }
 
-    private void notifyFall() {
-        Log.d(TAG, "notifyFall: showing check-in");
-        cancelEscalation();
-        
-        // Notify JavaScript immediately so app can show countdown screen
-        FallDetectionPlugin.notifyFallToJs();
-        Log.d(TAG, "JS event sent");
-        
-        showCheckInNotification();
-        scheduleEscalation();
+    private void reregisterAccelerometer() {
+        handler.removeCallbacks(reregisterTask);
+        reregisterPending = false;
+        registerAccelerometer();
     }
 
-    private void showCheckInNotification() {
-        String channelId = "emergency_alerts_v2";
-        NotificationManager nm = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        if (nm == null) {
-            Log.e(TAG, "NotificationManager is null");
+    private void holdWakeLock(boolean hold) {
+        if (wakeLock == null || hold == wakeLock.isHeld()) {
             return;
         }
+        if (hold) {
+            wakeLock.acquire();
+            DiagnosticsLog.log(DiagnosticsLog.WAKELOCK_ACQUIRED);
+        } else {
+            wakeLock.release();
+            DiagnosticsLog.log(DiagnosticsLog.WAKELOCK_RELEASED);
+        }
+    }
+
+    private void onTierChanged(DetectionGovernor.Tier next) {
+        tier = next;
+        DiagnosticsLog.log(DiagnosticsLog.TIER_CHANGED, next.level, governor.batteryLevel());
+        if (sensorManager != null && accelSensor != null) {
+            reregisterAfterFlush();
+        }
+        reportTier();
+        if (journal.phase() != EscalationJournal.AWAITING_RESPONSE) {
+            widgetStatus.setState(monitoringState());
+        }
+    }
 
-        NotificationChannel channel = new NotificationChannel(
-            channelId,
-            "Emergency Alerts",
-            NotificationManager.IMPORTANCE_HIGH
-        );
-        channel.enableVibration(true);
-        channel.setVibrationPattern(new long[]{300, 150, 300});
-        channel.setShowBadge(true);
-        channel.setSound(null, null);
-        nm.createNotificationChannel(channel);
-
-        Intent ackIntent = new Intent(this, FallDetectionService.class).setAction(ACTION_FALL_ACK);
-        PendingIntent ackPendingIntent = PendingIntent.getService(
-            this,
-            2001,
-            ackIntent,
-            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+    private void reportTier() {
+        FallDetectionPlugin.notifyTierToJs(
+            tier.name,
+            governor.batteryLevel(),
+            governor.isCharging(),
+            governor.thermalStatus()
         );
+    }
 
-        Notification notification = new NotificationCompat.Builder(this, channelId)
-            .setContentTitle("Are you okay?")
-            .setContentText("Tap 'I'm OK' within 15 seconds to cancel")
-            .setSmallIcon(android.R.drawable.stat_sys_warning)
-            .setPriority(NotificationCompat.PRIORITY_HIGH)
-            .setCategory(NotificationCompat.CATEGORY_ALARM)
-            .setAutoCancel(true)
-            .addAction(android.R.drawable.checkbox_on_background, "I'm OK", ackPendingIntent)
-            .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
-            .build();
-
-        nm.notify(ALERT_NOTIFICATION_ID, notification);
-        Log.d(TAG, "Check-in notification shown");
+    private void startForegroundWithNotification() {
+        startForeground(AlertController.SERVICE_NOTIFICATION_ID, alerts.serviceNotification());
     }
 
-    private void sendEmergencyNotification() {
-        String channelId = "emergency_alerts_v2";
-        NotificationManager nm = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        if (nm == null) {
-            Log.e(TAG, "NotificationManager is null");
-            return;
-        }
+    private void notifyFall(long impactTime) {
+        long detectedAt = SystemClock.elapsedRealtimeNanos();
+        // The check-in goes out first: the journal fsync, alarm and widget/JS updates
+        // that follow are all slower than notify().
+        alerts.showCheckIn(detectedAt);
+        cancelEscalation();
+        // The deadline runs from the impact, but a late batch still leaves the user a
+        // fair chance to answer the check-in.
+        long deadline = Math.max(impactTime + ESCALATION_DELAY_MS, System.currentTimeMillis() + MIN_RESPONSE_WINDOW_MS);
+        journal.checkInStarted(impactTime, deadline);
+        widgetStatus.setState(WidgetStatusPublisher.STATE_ALERT);
 
-        NotificationChannel channel = new NotificationChannel(
-            channelId,
-            "Emergency Alerts",
-            NotificationManager.IMPORTANCE_MAX
-        );
-        channel.enableVibration(true);
-        channel.setVibrationPattern(new long[]{500, 200, 500, 200, 500});
-        channel.setShowBadge(true);
-        channel.setSound(null, null);
-        nm.createNotificationChannel(channel);
-
-        Intent launchIntent = getPackageManager().getLaunchIntentForPackage(getPackageName());
-        if (launchIntent == null) {
-            Log.e(TAG, "Launch intent null");
+        // Notify JavaScript immediately so app can show countdown screen
+        FallDetectionPlugin.notifyFallToJs();
+        DiagnosticsLog.log(DiagnosticsLog.FALL_EVENT_TO_JS);
+
+        scheduleEscalation(deadline);
+    }
+
+    private void resumeEscalation() {
+        if (journal.phase() != EscalationJournal.AWAITING_RESPONSE || escalationInFlight) {
             return;
         }
+        long remaining = journal.deadline() - System.currentTimeMillis();
+        DiagnosticsLog.log(DiagnosticsLog.ESCALATION_RESUMED, remaining);
+        detector.restoreWaiting(journal.impactTime());
+        widgetStatus.setState(WidgetStatusPublisher.STATE_ALERT);
+        if (remaining < -STALE_ESCALATION_MS) {
+            escalate(true);
+        } else if (remaining <= 0) {
+            escalate();
+        } else {
+            scheduleEscalation(journal.deadline());
+        }
+    }
 
-        launchIntent.setFlags(
-            Intent.FLAG_ACTIVITY_NEW_TASK |
-            Intent.FLAG_ACTIVITY_CLEAR_TOP |
-            Intent.FLAG_ACTIVITY_SINGLE_TOP
-        );
-        launchIntent.putExtra("fall_detected", true);
-
-        PendingIntent contentIntent = PendingIntent.getActivity(
-            this,
-            ALERT_NOTIFICATION_ID,
-            launchIntent,
-            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
+    private void scheduleEscalation(long deadline) {
+        escalationTask = this::escalate;
+        handler.postAtTime(escalationTask, SystemClock.uptimeMillis() + Math.max(0L, deadline - System.currentTimeMillis()));
+
+        // Backstop in case the process dies before the handler runs.
+        AlarmManager am = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
+        if (am != null) {
+            PendingIntent alarmIntent = escalationAlarmIntent(this);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !am.canScheduleExactAlarms()) {
+                // An inexact alarm cannot start a foreground service from the background,
+                // so this only helps while the process is alive. The app asks for the
+                // permission when fall detection is enabled (requestExactAlarmPermission).
+                Log.e(TAG, "Exact alarms not permitted; escalation backstop is unreliable");
+                am.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, deadline, alarmIntent);
+                DiagnosticsLog.log(DiagnosticsLog.ESCALATION_ALARM_SET, 0, deadline);
+            } else {
+                am.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, deadline, alarmIntent);
+                DiagnosticsLog.log(DiagnosticsLog.ESCALATION_ALARM_SET, 1, deadline);
+            }
+        }
+    }
 
-        Notification notification = new NotificationCompat.Builder(this, channelId)
-            .setContentTitle("⚠️ FALL DETECTED!")
-            .setContentText("No response. Emergency alert sent.")
-            .setPriority(NotificationCompat.PRIORITY_MAX)
-            .setCategory(NotificationCompat.CATEGORY_ALARM)
-            .setSmallIcon(android.R.drawable.stat_sys_warning)
-            .setAutoCancel(true)
-            .setContentIntent(contentIntent)
-            .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
-            .setFullScreenIntent(contentIntent, true)
-            .build();
-
-        nm.notify(ALERT_NOTIFICATION_ID, notification);
-        Log.d(TAG, "Emergency notification sent");
+    private void escalate() {
+        escalate(false);
     }
 
-    private void scheduleEscalation() {
-        escalationTask = () -> {
-            Log.d(TAG, "No response within window. Escalating.");
-            waitingForResponse = false;
+    /**
+     * @param late the deadline passed long ago (the process was dead, e.g. the phone
+     *             was off): contacts get a delayed-alert SMS without a call, and the app
+     *             is not brought up with a countdown for an old fall
+     */
+    private void escalate(boolean late) {
+        if (journal.phase() != EscalationJournal.AWAITING_RESPONSE || escalationInFlight) {
+            return;
+        }
+        escalationInFlight = true;
+        long escalatedAt = SystemClock.elapsedRealtimeNanos();
+        DiagnosticsLog.log(DiagnosticsLog.ESCALATED);
+        // Contacts are reached natively first; the app launch below is best effort.
+        // ESCALATED is journaled only once the dispatcher has handed the SMS and call
+        // to the system, so dying before then replays as a pending check-in and
+        // escalates again: at worst contacts get a duplicate, never no alert.
+        final Context app = getApplicationContext();
+        Runnable onQueued = () -> handler.post(() -> onDispatchQueued(app));
+        if (late) {
+            dispatcher.dispatchLate(journal.impactTime(), onQueued);
+            alerts.showLate(journal.impactTime());
+        } else {
+            dispatcher.dispatch(onQueued);
+            alerts.showEscalated(escalatedAt);
+        }
+        cancelEscalation();
+        detector.clearWaiting();
+        if (!late) {
             FallDetectionPlugin.notifyFallToJs();
             launchApp();
-            sendEmergencyNotification();
-        };
-        handler.postDelayed(escalationTask, ESCALATION_DELAY_MS);
+        }
+        widgetStatus.setState(monitoringState());
+    }
+
+    private static void onDispatchQueued(Context context) {
+        escalationInFlight = false;
+        EscalationJournal current;
+        if (running != null) {
+            current = running.journal;
+        } else {
+            current = new EscalationJournal(journalFile(context));
+            current.load();
+        }
+        // Skipped if the user answered while the dispatch was running.
+        if (current.phase() == EscalationJournal.AWAITING_RESPONSE) {
+            current.escalated(System.currentTimeMillis());
+        }
+    }
+
+    private int monitoringState() {
+        return sensorDegraded || tier.level >= DetectionGovernor.Tier.SAVER.level
+            ? WidgetStatusPublisher.STATE_DEGRADED : WidgetStatusPublisher.STATE_ACTIVE;
     }
 
     private void cancelEscalation() {
+        cancelEscalationTimer();
+        AlarmManager am = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
+        if (am != null) {
+            am.cancel(escalationAlarmIntent(this));
+        }
+    }
+
+    private void cancelEscalationTimer() {
         if (escalationTask != null) {
             handler.removeCallbacks(escalationTask);
             escalationTask = null;
         }
     }
 
-    private void cancelAlertNotification() {
-        NotificationManager nm = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        if (nm != null) {
-            nm.cancel(ALERT_NOTIFICATION_ID);
+    private static File journalFile(Context context) {
+        return new File(context.getFilesDir(), "escalation.journal");
+    }
+
+    private static PendingIntent escalationAlarmIntent(Context context) {
+        Intent intent = new Intent(context, FallDetectionService.class).setAction(ACTION_ESCALATE);
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            return PendingIntent.getForegroundService(context, ESCALATION_ALARM_REQUEST_CODE, intent, flags);
         }
+        return PendingIntent.getService(context, ESCALATION_ALARM_REQUEST_CODE, intent, flags);
     }
 
     private void launchApp() {
         try {
-            Intent launchIntent = getPackageManager().getLaunchIntentForPackage(getPackageName());
+            Intent launchIntent = alerts.launchIntent();
             if (launchIntent == null) {
-                Log.e(TAG, "Launch intent null");
                 return;
             }
-            launchIntent.addFlags(
-                Intent.FLAG_ACTIVITY_NEW_TASK |
-                Intent.FLAG_ACTIVITY_CLEAR_TOP |
-                Intent.FLAG_ACTIVITY_SINGLE_TOP |
-                Intent.FLAG_ACTIVITY_RESET_TASK_IF_NEEDED
-            );
-            launchIntent.putExtra("fall_detected", true);
             startActivity(launchIntent);
-            Log.d(TAG, "App launch intent sent");
+            DiagnosticsLog.log(DiagnosticsLog.APP_LAUNCHED);
         } catch (Exception e) {
             Log.e(TAG, "Error launching app", e);
         }
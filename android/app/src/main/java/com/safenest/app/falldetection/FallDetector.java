@@ -0,0 +1,90 @@
+package com.safenest.app.falldetection;
+
+/**
+ * Impact-based fall heuristic shared by {@link FallDetectionService} and the offline
+ * detector evaluator. Pure Java on purpose: it must run on a desktop JVM as well.
+ */
+public final class FallDetector {
+    public static final int EVENT_NONE = 0;
+    public static final int EVENT_IMPACT = 1;
+    public static final int EVENT_IMPACT_COOLDOWN = 2;
+    public static final int EVENT_LOW_MOVEMENT = 3;
+
+    /** Tunable thresholds. Field names match the CLI keys used by the evaluator. */
+    public static final class Config {
+        public float impactThreshold = 40.0f;
+        public float lowAccelerationThreshold = 5.0f;
+        public long inactivityWindowMs = 1000L;
+        public long cooldownMs = 5_000L;
+
+        public Config copy() {
+            Config c = new Config();
+            c.impactThreshold = impactThreshold;
+            c.lowAccelerationThreshold = lowAccelerationThreshold;
+            c.inactivityWindowMs = inactivityWindowMs;
+            c.cooldownMs = cooldownMs;
+            return c;
+        }
+
+        @Override
+        public String toString() {
+            return "IMPACT_THRESHOLD=" + impactThreshold
+                + " LOW_ACCELERATION_THRESHOLD=" + lowAccelerationThreshold
+                + " INACTIVITY_WINDOW_MS=" + inactivityWindowMs
+                + " COOLDOWN_MS=" + cooldownMs;
+        }
+    }
+
+    private final Config config;
+    private long lastImpactTime = 0L;
+    private long lastAlertTime = Long.MIN_VALUE / 2;
+    private boolean waitingForResponse = false;
+
+    public FallDetector(Config config) {
+        this.config = config;
+    }
+
+    public Config config() {
+        return config;
+    }
+
+    public boolean isWaitingForResponse() {
+        return waitingForResponse;
+    }
+
+    /** Ends the current check-in, either because the user answered or it was escalated. */
+    public void clearWaiting() {
+        waitingForResponse = false;
+    }
+
+    /** Re-enters the waiting state for a check-in restored after a restart. */
+    public void restoreWaiting(long impactTime) {
+        lastImpactTime = impactTime;
+        lastAlertTime = impactTime;
+        waitingForResponse = true;
+    }
+
+    /** Feeds one accelerometer magnitude (m/s^2) and returns one of the EVENT_ codes. */
+    public int onSample(long now, float mag) {
+        if (mag > config.impactThreshold && !waitingForResponse) {
+            // Enforce cooldown period to avoid repeated alerts
+            if (now - lastAlertTime < config.cooldownMs) {
+                return EVENT_IMPACT_COOLDOWN;
+            }
+            lastImpactTime = now;
+            lastAlertTime = now;
+            waitingForResponse = true;
+            return EVENT_IMPACT;
+        }
+
+        if (waitingForResponse && lastImpactTime > 0) {
+            long dt = now - lastImpactTime;
+            if (dt > config.inactivityWindowMs) {
+                lastImpactTime = 0L;
+            } else if (mag < config.lowAccelerationThreshold) {
+                return EVENT_LOW_MOVEMENT;
+            }
+        }
+        return EVENT_NONE;
+    }
+}
@@ -0,0 +1,60 @@
+package com.safenest.app.falldetection;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.TimeZone;
+
+public class ActivityHistoryStoreTest {
+    private static final int HOUR = 60;
+    private static final int DAY = 1440;
+
+    private final TimeZone original = TimeZone.getDefault();
+
+    @After
+    public void restoreTimeZone() {
+        TimeZone.setDefault(original);
+    }
+
+    /** Epoch minute of an ISO-8601 UTC instant. */
+    private static long minute(String utc) {
+        return Instant.parse(utc).getEpochSecond() / 60L;
+    }
+
+    @Test
+    public void dayStartIsStableAcrossSpringForward() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+        // 2026-03-29: clocks go from 02:00 CET to 03:00 CEST (01:00Z).
+        long midnight = minute("2026-03-28T23:00:00Z");
+        assertEquals(midnight, ActivityHistoryStore.bucketStart(minute("2026-03-28T23:00:00Z"), DAY));
+        assertEquals(midnight, ActivityHistoryStore.bucketStart(minute("2026-03-29T00:59:00Z"), DAY));
+        assertEquals(midnight, ActivityHistoryStore.bucketStart(minute("2026-03-29T12:00:00Z"), DAY));
+        assertEquals(midnight, ActivityHistoryStore.bucketStart(minute("2026-03-29T21:59:00Z"), DAY));
+        assertEquals(minute("2026-03-29T22:00:00Z"),
+            ActivityHistoryStore.bucketStart(minute("2026-03-29T22:00:00Z"), DAY));
+    }
+
+    @Test
+    public void dayStartIsStableAcrossFallBack() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+        // 2026-10-25: clocks go from 03:00 CEST back to 02:00 CET (01:00Z).
+        long midnight = minute("2026-10-24T22:00:00Z");
+        assertEquals(midnight, ActivityHistoryStore.bucketStart(minute("2026-10-25T00:59:00Z"), DAY));
+        assertEquals(midnight, ActivityHistoryStore.bucketStart(minute("2026-10-25T01:00:00Z"), DAY));
+        assertEquals(midnight, ActivityHistoryStore.bucketStart(minute("2026-10-25T22:59:00Z"), DAY));
+        assertEquals(minute("2026-10-25T23:00:00Z"),
+            ActivityHistoryStore.bucketStart(minute("2026-10-25T23:00:00Z"), DAY));
+    }
+
+    @Test
+    public void hourStartFollowsLocalHours() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kathmandu")); // UTC+05:45
+        assertEquals(minute("2026-03-29T10:15:00Z"),
+            ActivityHistoryStore.bucketStart(minute("2026-03-29T10:50:00Z"), HOUR));
+        assertEquals(minute("2026-03-29T11:15:00Z"),
+            ActivityHistoryStore.bucketStart(minute("2026-03-29T11:15:00Z"), HOUR));
+    }
+}
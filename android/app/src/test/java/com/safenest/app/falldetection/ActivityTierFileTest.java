@@ -0,0 +1,200 @@
+package com.safenest.app.falldetection;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ActivityTierFileTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    /** Bucket i starts at minute 2 * i, with a mean that goes up and down. */
+    private static void fill(ActivityTierFile tier, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            assertTrue(tier.append(2L * i, 60 + i % 7, mean(i), 1000 + i, i % 3));
+        }
+    }
+
+    private static int mean(int i) {
+        return (i % 2 == 0 ? 1 : -1) * (i * 37 % 5000);
+    }
+
+    private static List<long[]> query(ActivityTierFile tier, long from, long to) throws IOException {
+        List<long[]> rows = new ArrayList<>();
+        tier.query(from, to, (start, samples, mean, peak, impacts) ->
+            rows.add(new long[]{start, samples, mean, peak, impacts}));
+        return rows;
+    }
+
+    private static void assertBucket(long[] row, int i) {
+        assertEquals(2L * i, row[0]);
+        assertEquals(60 + i % 7, row[1]);
+        assertEquals(mean(i), row[2]);
+        assertEquals(1000 + i, row[3]);
+        assertEquals(i % 3, row[4]);
+    }
+
+    private ActivityTierFile open(File file) throws IOException {
+        ActivityTierFile tier = new ActivityTierFile(file);
+        tier.open();
+        return tier;
+    }
+
+    @Test
+    public void appendAndQueryRoundTrip() throws Exception {
+        ActivityTierFile tier = open(tmp.newFile("minute.ts"));
+        assertTrue(tier.isEmpty());
+        fill(tier, 0, 10);
+
+        List<long[]> rows = query(tier, 0, Long.MAX_VALUE);
+        assertEquals(10, rows.size());
+        for (int i = 0; i < 10; i++) {
+            assertBucket(rows.get(i), i);
+        }
+        assertEquals(18L, tier.lastStart());
+        tier.close();
+    }
+
+    @Test
+    public void rejectsNonIncreasingStart() throws Exception {
+        ActivityTierFile tier = open(tmp.newFile("minute.ts"));
+        assertTrue(tier.append(10, 1, 0, 0, 0));
+        assertFalse(tier.append(10, 1, 0, 0, 0));
+        assertFalse(tier.append(5, 1, 0, 0, 0));
+        assertEquals(1, query(tier, 0, Long.MAX_VALUE).size());
+        tier.close();
+    }
+
+    @Test
+    public void reopenRebuildsStateAndIndex() throws Exception {
+        File file = tmp.newFile("minute.ts");
+        ActivityTierFile tier = open(file);
+        fill(tier, 0, 500);
+        long size = tier.sizeBytes();
+        tier.close();
+
+        ActivityTierFile reopened = open(file);
+        assertEquals(998L, reopened.lastStart());
+        assertEquals(size, reopened.sizeBytes());
+        fill(reopened, 500, 600);
+
+        List<long[]> rows = query(reopened, 0, Long.MAX_VALUE);
+        assertEquals(600, rows.size());
+        for (int i = 0; i < 600; i++) {
+            assertBucket(rows.get(i), i);
+        }
+        reopened.close();
+    }
+
+    @Test
+    public void tornTailIsTruncatedOnOpen() throws Exception {
+        File file = tmp.newFile("minute.ts");
+        ActivityTierFile tier = open(file);
+        fill(tier, 0, 5);
+        tier.close();
+
+        // Drop the last byte, as if the process died mid-append.
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+
+        ActivityTierFile reopened = open(file);
+        assertEquals(6L, reopened.lastStart());
+        assertEquals(file.length(), reopened.sizeBytes());
+        fill(reopened, 4, 6);
+
+        List<long[]> rows = query(reopened, 0, Long.MAX_VALUE);
+        assertEquals(6, rows.size());
+        for (int i = 0; i < 6; i++) {
+            assertBucket(rows.get(i), i);
+        }
+        reopened.close();
+    }
+
+    @Test
+    public void badHeaderStartsFresh() throws Exception {
+        File file = tmp.newFile("minute.ts");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeBytes("garbage!");
+        }
+        ActivityTierFile tier = open(file);
+        assertTrue(tier.isEmpty());
+        fill(tier, 0, 3);
+        assertEquals(3, query(tier, 0, Long.MAX_VALUE).size());
+        tier.close();
+    }
+
+    @Test
+    public void queryRangesAcrossIndexStrides() throws Exception {
+        ActivityTierFile tier = open(tmp.newFile("minute.ts"));
+        fill(tier, 0, 1000);
+
+        // Exactly on an index entry (record 128 starts at minute 256).
+        List<long[]> rows = query(tier, 256, 300);
+        assertEquals(23, rows.size());
+        assertBucket(rows.get(0), 128);
+        assertBucket(rows.get(22), 150);
+
+        // Between records, spanning several strides.
+        rows = query(tier, 501, 1777);
+        assertEquals(638, rows.size());
+        assertBucket(rows.get(0), 251);
+        assertBucket(rows.get(637), 888);
+
+        // Tail, past the end, before the start, inverted.
+        rows = query(tier, 1990, 5000);
+        assertEquals(5, rows.size());
+        assertBucket(rows.get(4), 999);
+        assertTrue(query(tier, 2000, 5000).isEmpty());
+        assertEquals(1, query(tier, -100, 0).size());
+        assertTrue(query(tier, 50, 10).isEmpty());
+        tier.close();
+    }
+
+    @Test
+    public void retainDropsOldBuckets() throws Exception {
+        File file = tmp.newFile("minute.ts");
+        ActivityTierFile tier = open(file);
+        fill(tier, 0, 300);
+        long before = tier.sizeBytes();
+
+        tier.retain(301);
+        assertTrue(tier.sizeBytes() < before);
+        assertEquals(file.length(), tier.sizeBytes());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        List<long[]> rows = query(tier, 0, Long.MAX_VALUE);
+        assertEquals(149, rows.size());
+        assertBucket(rows.get(0), 151);
+        assertBucket(rows.get(148), 299);
+
+        // Still appendable, and the rewritten file reopens to the same content.
+        fill(tier, 300, 310);
+        tier.close();
+        ActivityTierFile reopened = open(file);
+        rows = query(reopened, 0, Long.MAX_VALUE);
+        assertEquals(159, rows.size());
+        assertBucket(rows.get(158), 309);
+        reopened.close();
+    }
+
+    @Test
+    public void retainBeforeFirstBucketKeepsEverything() throws Exception {
+        ActivityTierFile tier = open(tmp.newFile("minute.ts"));
+        fill(tier, 5, 10);
+        long size = tier.sizeBytes();
+        tier.retain(10);
+        assertEquals(size, tier.sizeBytes());
+        assertEquals(5, query(tier, 0, Long.MAX_VALUE).size());
+        tier.close();
+    }
+}
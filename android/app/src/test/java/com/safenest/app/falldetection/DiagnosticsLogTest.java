@@ -0,0 +1,70 @@
+package com.safenest.app.falldetection;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class DiagnosticsLogTest {
+    private static final int HEADER_BYTES = 16;
+    private static final int ENTRY_BYTES = 24;
+    private static final int CAPACITY = 4096;
+
+    private final ByteBuffer ring = ByteBuffer.allocate(HEADER_BYTES + CAPACITY * ENTRY_BYTES);
+
+    private void entry(long seq, long time) {
+        ring.putLong(HEADER_BYTES + (int) (seq % CAPACITY) * ENTRY_BYTES, time);
+    }
+
+    private void header(long next) {
+        ring.putLong(8, next);
+    }
+
+    @Test
+    public void emptyRingStartsAtZero() {
+        assertEquals(0L, DiagnosticsLog.recoverSequence(ring));
+    }
+
+    @Test
+    public void headerInStepIsKept() {
+        for (long s = 0; s < 10; s++) {
+            entry(s, 1_000L + s);
+        }
+        header(10);
+        assertEquals(10L, DiagnosticsLog.recoverSequence(ring));
+    }
+
+    @Test
+    public void lowerHeaderSkipsEntriesWrittenAfterIt() {
+        for (long s = 0; s < 10; s++) {
+            entry(s, 1_000L + s);
+        }
+        // A slower thread stored its own sequence last.
+        header(7);
+        assertEquals(10L, DiagnosticsLog.recoverSequence(ring));
+
+        header(0);
+        assertEquals(10L, DiagnosticsLog.recoverSequence(ring));
+    }
+
+    @Test
+    public void olderLapIsNotMistakenForNewEntries() {
+        for (long s = 0; s < CAPACITY + 5; s++) {
+            entry(s, s < CAPACITY ? 1_000L + s : 1_000_000L + s);
+        }
+        // Slot CAPACITY + 5 still holds entry 5 from the first lap.
+        header(CAPACITY + 3);
+        assertEquals(CAPACITY + 5L, DiagnosticsLog.recoverSequence(ring));
+    }
+
+    @Test
+    public void toleratesSmallClockSteps() {
+        entry(0, 10_000L);
+        entry(1, 9_500L);
+        entry(2, 9_600L);
+        entry(3, 5_000L);
+        header(1);
+        assertEquals(3L, DiagnosticsLog.recoverSequence(ring));
+    }
+}
@@ -0,0 +1,127 @@
+package com.safenest.app.falldetection;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+
+public class EscalationJournalTest {
+    private static final int RECORD_BYTES = 21; // type, time, deadline, CRC32
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File file() {
+        return new File(tmp.getRoot(), "escalation.journal");
+    }
+
+    private static EscalationJournal load(File file) {
+        EscalationJournal journal = new EscalationJournal(file);
+        journal.load();
+        return journal;
+    }
+
+    @Test
+    public void missingFileIsIdle() {
+        EscalationJournal journal = load(file());
+        assertEquals(EscalationJournal.IDLE, journal.phase());
+        assertFalse(file().exists());
+    }
+
+    @Test
+    public void pendingCheckInSurvivesReload() {
+        load(file()).checkInStarted(1_000L, 16_000L);
+
+        EscalationJournal replayed = load(file());
+        assertEquals(EscalationJournal.AWAITING_RESPONSE, replayed.phase());
+        assertEquals(1_000L, replayed.impactTime());
+        assertEquals(16_000L, replayed.deadline());
+    }
+
+    @Test
+    public void replaysTransitionsInOrder() {
+        EscalationJournal journal = load(file());
+        journal.checkInStarted(1_000L, 16_000L);
+        journal.acknowledged(5_000L);
+        assertEquals(EscalationJournal.IDLE, load(file()).phase());
+
+        journal.checkInStarted(20_000L, 35_000L);
+        journal.escalated(35_000L);
+        assertEquals(EscalationJournal.ESCALATED, load(file()).phase());
+
+        journal.checkInStarted(40_000L, 55_000L);
+        EscalationJournal replayed = load(file());
+        assertEquals(EscalationJournal.AWAITING_RESPONSE, replayed.phase());
+        assertEquals(40_000L, replayed.impactTime());
+    }
+
+    @Test
+    public void tornTailDropsPartialRecord() throws Exception {
+        EscalationJournal journal = load(file());
+        journal.checkInStarted(1_000L, 16_000L);
+        journal.acknowledged(5_000L);
+        try (RandomAccessFile raf = new RandomAccessFile(file(), "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+
+        EscalationJournal replayed = load(file());
+        assertEquals(EscalationJournal.AWAITING_RESPONSE, replayed.phase());
+        assertEquals(16_000L, replayed.deadline());
+        // Rewritten to the replayed state so later appends stay aligned.
+        assertEquals(RECORD_BYTES, file().length());
+
+        replayed.acknowledged(6_000L);
+        assertEquals(EscalationJournal.IDLE, load(file()).phase());
+    }
+
+    @Test
+    public void corruptRecordIgnoresTail() throws Exception {
+        EscalationJournal journal = load(file());
+        journal.checkInStarted(1_000L, 16_000L);
+        journal.escalated(16_000L);
+        try (RandomAccessFile raf = new RandomAccessFile(file(), "rw")) {
+            raf.seek(RECORD_BYTES + 3);
+            raf.write(raf.read() ^ 0xFF);
+        }
+
+        EscalationJournal replayed = load(file());
+        assertEquals(EscalationJournal.AWAITING_RESPONSE, replayed.phase());
+        assertEquals(1_000L, replayed.impactTime());
+        assertEquals(16_000L, replayed.deadline());
+        assertEquals(RECORD_BYTES, file().length());
+    }
+
+    @Test
+    public void damagedJournalAtRestIsReset() throws Exception {
+        EscalationJournal journal = load(file());
+        journal.checkInStarted(1_000L, 16_000L);
+        journal.acknowledged(5_000L);
+        try (FileOutputStream out = new FileOutputStream(file(), true)) {
+            out.write(new byte[]{1, 2, 3, 4, 5, 6, 7});
+        }
+
+        EscalationJournal replayed = load(file());
+        assertEquals(EscalationJournal.IDLE, replayed.phase());
+        assertFalse(file().exists());
+
+        replayed.checkInStarted(20_000L, 35_000L);
+        assertEquals(EscalationJournal.AWAITING_RESPONSE, load(file()).phase());
+    }
+
+    @Test
+    public void compactsOnlyAtRest() {
+        EscalationJournal journal = load(file());
+        for (int i = 0; i < 200; i++) {
+            journal.checkInStarted(i * 100L, i * 100L + 15_000L);
+            assertTrue(file().length() <= 66L * RECORD_BYTES);
+            assertEquals(EscalationJournal.AWAITING_RESPONSE, load(file()).phase());
+            journal.acknowledged(i * 100L + 50L);
+        }
+        assertEquals(EscalationJournal.IDLE, load(file()).phase());
+    }
+}
@@ -0,0 +1,397 @@
+package com.safenest.app.falldetection.eval;
+
+import com.safenest.app.falldetection.FallDetector;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Replays a directory of labeled traces through one or more {@link FallDetector}
+ * configurations in parallel and reports precision, recall, detection delay and
+ * throughput for each.
+ *
+ * <pre>
+ * detector-eval &lt;traces-dir&gt; [--config KEY=V,KEY=V]... [--sweep KEY=from:to:step | KEY=a,b,c]...
+ *               [--positive fall] [--max-delay 5000] [--threads N] [--top 20]
+ * </pre>
+ *
+ * Keys are the detector constants: IMPACT_THRESHOLD, LOW_ACCELERATION_THRESHOLD,
+ * INACTIVITY_WINDOW_MS, COOLDOWN_MS. Sweeps are combined as a cartesian product on
+ * top of each --config (or the service defaults).
+ */
+public final class DetectorEvaluator {
+    // Mirrors FallDetectionService: the check-in ends by escalation after this long.
+    private static final long ESCALATION_DELAY_MS = 15_000L;
+    // A detection this long before the labeled event still counts (label jitter).
+    private static final long EARLY_TOLERANCE_MS = 500L;
+    // Below this many traces per task the fork/join split stops.
+    private static final int TASK_GRAIN = 8;
+
+    private final List<LabeledTrace> traces;
+    private final List<FallDetector.Config> configs;
+    private final String positiveLabel;
+    private final long maxDelayMs;
+
+    // Per (config, trace) results, indexed c * traces.size() + t.
+    private final long[] firstDetectionOffset;
+    private final int[] detections;
+    private final long[] cpuNanos;
+
+    DetectorEvaluator(List<LabeledTrace> traces, List<FallDetector.Config> configs,
+                      String positiveLabel, long maxDelayMs) {
+        this.traces = traces;
+        this.configs = configs;
+        this.positiveLabel = positiveLabel;
+        this.maxDelayMs = maxDelayMs;
+        int cells = traces.size() * configs.size();
+        firstDetectionOffset = new long[cells];
+        detections = new int[cells];
+        cpuNanos = new long[cells];
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            usage("missing traces directory");
+        }
+        Path root = Paths.get(args[0]);
+        List<FallDetector.Config> bases = new ArrayList<>();
+        Map<String, float[]> sweeps = new TreeMap<>();
+        String positive = "fall";
+        long maxDelay = 5_000L;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int top = 20;
+
+        for (int i = 1; i < args.length; i++) {
+            String opt = args[i];
+            if (i + 1 >= args.length) {
+                usage("missing value for " + opt);
+            }
+            String value = args[++i];
+            switch (opt) {
+                case "--config":
+                    FallDetector.Config config = new FallDetector.Config();
+                    for (String assignment : value.split(",")) {
+                        String[] kv = assignment.split("=", 2);
+                        if (kv.length != 2) {
+                            usage("bad --config entry " + assignment);
+                        }
+                        set(config, kv[0], Float.parseFloat(kv[1]));
+                    }
+                    bases.add(config);
+                    break;
+                case "--sweep":
+                    String[] kv = value.split("=", 2);
+                    if (kv.length != 2) {
+                        usage("bad --sweep " + value);
+                    }
+                    set(new FallDetector.Config(), kv[0], 0f); // validates the key
+                    sweeps.put(kv[0], parseValues(kv[1]));
+                    break;
+                case "--positive":
+                    positive = value.toLowerCase(Locale.ROOT);
+                    break;
+                case "--max-delay":
+                    maxDelay = Long.parseLong(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--top":
+                    top = Integer.parseInt(value);
+                    break;
+                default:
+                    usage("unknown option " + opt);
+            }
+        }
+        if (bases.isEmpty()) {
+            bases.add(new FallDetector.Config());
+        }
+
+        List<FallDetector.Config> configs = new ArrayList<>();
+        for (FallDetector.Config base : bases) {
+            expand(base, new ArrayList<>(sweeps.entrySet()), 0, configs);
+        }
+
+        long loadStart = System.nanoTime();
+        List<LabeledTrace> traces = loadTraces(root);
+        if (traces.isEmpty()) {
+            usage("no .csv traces under " + root);
+        }
+        long totalSamples = 0;
+        for (LabeledTrace trace : traces) {
+            totalSamples += trace.size();
+        }
+        System.out.printf(Locale.ROOT, "Loaded %d traces (%d samples) in %.0f ms; %d configurations on %d threads%n",
+            traces.size(), totalSamples, (System.nanoTime() - loadStart) / 1e6, configs.size(), threads);
+
+        DetectorEvaluator evaluator = new DetectorEvaluator(traces, configs, positive, maxDelay);
+        long wallStart = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(evaluator.new EvaluateRange(0, traces.size() * configs.size()));
+        } finally {
+            pool.shutdown();
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+
+        List<Result> results = new ArrayList<>();
+        for (int c = 0; c < configs.size(); c++) {
+            results.add(evaluator.summarize(c));
+        }
+        results.sort(Comparator.comparingDouble((Result r) -> -r.f1).thenComparingDouble(r -> r.meanDelayMs));
+
+        System.out.printf(Locale.ROOT, "Replayed %d samples in %.0f ms wall (%.2fM samples/s aggregate)%n%n",
+            totalSamples * configs.size(), wallNanos / 1e6, totalSamples * configs.size() / (wallNanos / 1e9) / 1e6);
+        System.out.println(" prec   recall  f1     TP  FN  FP   delay_ms(mean/p50/p95)  Msamples/s/core  config");
+        for (int i = 0; i < Math.min(top, results.size()); i++) {
+            Result r = results.get(i);
+            System.out.printf(Locale.ROOT, " %.3f  %.3f   %.3f  %3d %3d %3d   %6.0f / %6.0f / %6.0f     %8.2f      %s%n",
+                r.precision, r.recall, r.f1, r.truePositives, r.falseNegatives, r.falsePositives,
+                r.meanDelayMs, r.p50DelayMs, r.p95DelayMs, r.samplesPerSecond / 1e6, configs.get(r.configIndex));
+        }
+
+        System.out.println();
+        System.out.println("Per-label detection rate for the best configuration:");
+        evaluator.printLabels(results.get(0).configIndex);
+    }
+
+    /** Fork/join over the flattened (config, trace) grid. */
+    private final class EvaluateRange extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        EvaluateRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_GRAIN) {
+                for (int cell = from; cell < to; cell++) {
+                    run(cell);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new EvaluateRange(from, mid), new EvaluateRange(mid, to));
+        }
+    }
+
+    private void run(int cell) {
+        FallDetector.Config config = configs.get(cell / traces.size());
+        LabeledTrace trace = traces.get(cell % traces.size());
+        FallDetector detector = new FallDetector(config);
+        long[] time = trace.time;
+        float[] magnitude = trace.magnitude;
+        long first = Long.MIN_VALUE;
+        long escalateAt = Long.MAX_VALUE;
+        int count = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < time.length; i++) {
+            long now = time[i];
+            if (now >= escalateAt) {
+                detector.clearWaiting();
+                escalateAt = Long.MAX_VALUE;
+            }
+            if (detector.onSample(now, magnitude[i]) == FallDetector.EVENT_IMPACT) {
+                if (count == 0) {
+                    first = now - trace.eventMs;
+                }
+                count++;
+                escalateAt = now + ESCALATION_DELAY_MS;
+            }
+        }
+        cpuNanos[cell] = System.nanoTime() - start;
+        firstDetectionOffset[cell] = first;
+        detections[cell] = count;
+    }
+
+    private boolean isPositive(LabeledTrace trace) {
+        return trace.label.startsWith(positiveLabel);
+    }
+
+    private boolean isHit(int cell) {
+        long offset = firstDetectionOffset[cell];
+        return detections[cell] > 0 && offset >= -EARLY_TOLERANCE_MS && offset <= maxDelayMs;
+    }
+
+    private Result summarize(int c) {
+        Result r = new Result(c);
+        long[] delays = new long[traces.size()];
+        int hits = 0;
+        long samples = 0;
+        long nanos = 0;
+        for (int t = 0; t < traces.size(); t++) {
+            int cell = c * traces.size() + t;
+            LabeledTrace trace = traces.get(t);
+            samples += trace.size();
+            nanos += cpuNanos[cell];
+            if (isPositive(trace)) {
+                if (isHit(cell)) {
+                    r.truePositives++;
+                    delays[hits++] = Math.max(0L, firstDetectionOffset[cell]);
+                } else {
+                    r.falseNegatives++;
+                }
+            } else if (detections[cell] > 0) {
+                r.falsePositives++;
+            }
+        }
+        r.precision = r.truePositives + r.falsePositives == 0 ? 0 : (double) r.truePositives / (r.truePositives + r.falsePositives);
+        r.recall = r.truePositives + r.falseNegatives == 0 ? 0 : (double) r.truePositives / (r.truePositives + r.falseNegatives);
+        r.f1 = r.precision + r.recall == 0 ? 0 : 2 * r.precision * r.recall / (r.precision + r.recall);
+        if (hits > 0) {
+            Arrays.sort(delays, 0, hits);
+            long sum = 0;
+            for (int i = 0; i < hits; i++) {
+                sum += delays[i];
+            }
+            r.meanDelayMs = (double) sum / hits;
+            r.p50DelayMs = delays[(hits - 1) / 2];
+            r.p95DelayMs = delays[(int) Math.ceil(0.95 * hits) - 1];
+        } else {
+            r.meanDelayMs = Double.NaN;
+            r.p50DelayMs = Double.NaN;
+            r.p95DelayMs = Double.NaN;
+        }
+        r.samplesPerSecond = nanos == 0 ? 0 : samples / (nanos / 1e9);
+        return r;
+    }
+
+    private void printLabels(int c) {
+        Map<String, int[]> perLabel = new TreeMap<>();
+        for (int t = 0; t < traces.size(); t++) {
+            int cell = c * traces.size() + t;
+            LabeledTrace trace = traces.get(t);
+            int[] counts = perLabel.computeIfAbsent(trace.label, k -> new int[2]);
+            counts[0]++;
+            if (isPositive(trace) ? isHit(cell) : detections[cell] > 0) {
+                counts[1]++;
+            }
+        }
+        for (Map.Entry<String, int[]> e : perLabel.entrySet()) {
+            int[] counts = e.getValue();
+            System.out.printf(Locale.ROOT, "  %-16s %4d / %-4d %s%n", e.getKey(), counts[1], counts[0],
+                e.getKey().startsWith(positiveLabel) ? "detected" : "false alarms");
+        }
+    }
+
+    private static final class Result {
+        final int configIndex;
+        int truePositives;
+        int falseNegatives;
+        int falsePositives;
+        double precision;
+        double recall;
+        double f1;
+        double meanDelayMs;
+        double p50DelayMs;
+        double p95DelayMs;
+        double samplesPerSecond;
+
+        Result(int configIndex) {
+            this.configIndex = configIndex;
+        }
+    }
+
+    private static List<LabeledTrace> loadTraces(Path root) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(".csv"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+        // Parsing dominates startup on large corpora, so it runs in parallel too.
+        List<LabeledTrace> traces = files.parallelStream().map(p -> {
+            try {
+                return LabeledTrace.load(root, p);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        }).collect(Collectors.toList());
+        return traces;
+    }
+
+    private static void expand(FallDetector.Config base, List<Map.Entry<String, float[]>> sweeps,
+                               int depth, List<FallDetector.Config> out) {
+        if (depth == sweeps.size()) {
+            out.add(base);
+            return;
+        }
+        Map.Entry<String, float[]> sweep = sweeps.get(depth);
+        for (float value : sweep.getValue()) {
+            FallDetector.Config config = base.copy();
+            set(config, sweep.getKey(), value);
+            expand(config, sweeps, depth + 1, out);
+        }
+    }
+
+    private static float[] parseValues(String spec) {
+        if (spec.contains(":")) {
+            String[] p = spec.split(":");
+            if (p.length != 3) {
+                usage("range must be from:to:step, got " + spec);
+            }
+            float from = Float.parseFloat(p[0]);
+            float to = Float.parseFloat(p[1]);
+            float step = Float.parseFloat(p[2]);
+            if (step <= 0 || to < from) {
+                usage("empty range " + spec);
+            }
+            int n = (int) Math.floor((to - from) / step + 1e-6) + 1;
+            float[] values = new float[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = from + i * step;
+            }
+            return values;
+        }
+        String[] p = spec.split(",");
+        float[] values = new float[p.length];
+        for (int i = 0; i < p.length; i++) {
+            values[i] = Float.parseFloat(p[i]);
+        }
+        return values;
+    }
+
+    private static void set(FallDetector.Config config, String key, float value) {
+        switch (key.toUpperCase(Locale.ROOT)) {
+            case "IMPACT_THRESHOLD":
+                config.impactThreshold = value;
+                break;
+            case "LOW_ACCELERATION_THRESHOLD":
+                config.lowAccelerationThreshold = value;
+                break;
+            case "INACTIVITY_WINDOW_MS":
+                config.inactivityWindowMs = (long) value;
+                break;
+            case "COOLDOWN_MS":
+                config.cooldownMs = (long) value;
+                break;
+            default:
+                usage("unknown key " + key);
+        }
+    }
+
+    private static void usage(String error) {
+        System.err.println("error: " + error);
+        System.err.println("usage: detector-eval <traces-dir> [--config KEY=V,KEY=V]... [--sweep KEY=from:to:step|KEY=a,b,c]...");
+        System.err.println("                     [--positive fall] [--max-delay ms] [--threads N] [--top N]");
+        System.err.println("keys: IMPACT_THRESHOLD LOW_ACCELERATION_THRESHOLD INACTIVITY_WINDOW_MS COOLDOWN_MS");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,99 @@
+package com.safenest.app.falldetection.eval;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A recorded accelerometer trace, loaded into primitive arrays.
+ *
+ * Traces are CSV files of {@code timestamp_ms,ax,ay,az}. The label is the name of the
+ * top-level directory the file sits in (falls/, drops/, sit_down/, walking/, car/ ...).
+ * Lines starting with '#' are comments, except {@code # event_ms=<t>} which marks the
+ * ground-truth moment of the fall. Without it, the peak magnitude is used.
+ */
+final class LabeledTrace {
+    final String name;
+    final String label;
+    final long[] time;
+    final float[] magnitude;
+    final long eventMs;
+
+    private LabeledTrace(String name, String label, long[] time, float[] magnitude, long eventMs) {
+        this.name = name;
+        this.label = label;
+        this.time = time;
+        this.magnitude = magnitude;
+        this.eventMs = eventMs;
+    }
+
+    int size() {
+        return time.length;
+    }
+
+    static LabeledTrace load(Path root, Path file) throws IOException {
+        Path relative = root.relativize(file);
+        String label = relative.getNameCount() > 1
+            ? relative.getName(0).toString().toLowerCase(Locale.ROOT)
+            : "unlabeled";
+
+        long[] time = new long[4096];
+        float[] magnitude = new float[4096];
+        int n = 0;
+        long eventMs = Long.MIN_VALUE;
+        int lineNo = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (line.startsWith("#")) {
+                    int eq = line.indexOf("event_ms=");
+                    if (eq >= 0) {
+                        eventMs = Long.parseLong(line.substring(eq + "event_ms=".length()).trim());
+                    }
+                    continue;
+                }
+                String[] parts = line.split(",");
+                if (parts.length < 4) {
+                    throw new IOException(file + ":" + lineNo + ": expected timestamp_ms,ax,ay,az");
+                }
+                if (!Character.isDigit(parts[0].trim().charAt(0))) {
+                    continue; // column header
+                }
+                if (n == time.length) {
+                    time = Arrays.copyOf(time, n * 2);
+                    magnitude = Arrays.copyOf(magnitude, n * 2);
+                }
+                float ax = Float.parseFloat(parts[1].trim());
+                float ay = Float.parseFloat(parts[2].trim());
+                float az = Float.parseFloat(parts[3].trim());
+                time[n] = Long.parseLong(parts[0].trim());
+                magnitude[n] = (float) Math.sqrt(ax * ax + ay * ay + az * az);
+                n++;
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException(file + ":" + lineNo + ": " + e.getMessage(), e);
+        }
+
+        time = Arrays.copyOf(time, n);
+        magnitude = Arrays.copyOf(magnitude, n);
+        if (eventMs == Long.MIN_VALUE && n > 0) {
+            int peak = 0;
+            for (int i = 1; i < n; i++) {
+                if (magnitude[i] > magnitude[peak]) {
+                    peak = i;
+                }
+            }
+            eventMs = time[peak];
+        }
+        return new LabeledTrace(relative.toString(), label, time, magnitude, eventMs);
+    }
+}
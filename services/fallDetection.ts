@@ -1,9 +1,62 @@
 import { Capacitor } from '@capacitor/core';
+import { Contact } from '../types';
+
+export type ActivityResolution = 'minute' | 'hour' | 'day' | 'auto';
+
+// Column arrays, one entry per bucket. `start` is epoch ms, `mean`/`peak` are
+// deviation from gravity in m/s^2, `impacts` counts detected impacts.
+export interface ActivityHistory {
+  resolution: Exclude<ActivityResolution, 'auto'>;
+  start: number[];
+  samples: number[];
+  mean: number[];
+  peak: number[];
+  impacts: number[];
+}
+
+export interface DetectionTier {
+  tier: 'full' | 'balanced' | 'saver' | 'critical';
+  batteryLevel: number;
+  charging: boolean;
+  thermalStatus: number; // PowerManager.THERMAL_STATUS_*
+}
+
+export type DispatchStatus = 'queued' | 'sent' | 'delivered' | 'failed' | 'no_permission';
+
+// Native SMS/call fan-out report for the last escalation. Times are ms since the
+// escalation fired. `late` alerts follow a check-in that expired while the phone was
+// off; they say so in the SMS and skip the call.
+export interface EmergencyDispatch {
+  dispatchedMs: number;
+  late: boolean;
+  call: 'placed' | 'queued' | 'failed' | 'no_permission' | 'skipped' | 'none';
+  contacts: {
+    name: string;
+    phone: string;
+    primary: boolean;
+    status: DispatchStatus;
+    sentMs?: number;
+    deliveredMs?: number;
+    errorCode?: number;
+  }[];
+}
 
 // Minimal plugin interface
 interface FallDetectionPlugin {
   start: () => Promise<void>;
   stop: () => Promise<void>;
+  acknowledge: () => Promise<void>;
+  disable: () => Promise<void>;
+  getActivityHistory: (options: { from: number; to: number; resolution?: ActivityResolution }) => Promise<ActivityHistory>;
+  exportDiagnostics: () => Promise<{ log: string }>;
+  getDetectionTier: () => Promise<Partial<DetectionTier>>;
+  setEmergencyContacts: (options: {
+    contacts: Pick<Contact, 'name' | 'phone' | 'isPrimary'>[];
+    allowEmpty?: boolean;
+  }) => Promise<void>;
+  getLastDispatch: () => Promise<Partial<EmergencyDispatch>>;
+  requestPermissions: (options: { permissions: 'emergency'[] }) => Promise<{ emergency: string }>;
+  requestExactAlarmPermission: () => Promise<{ granted: boolean }>;
 }
 
 const plugin: FallDetectionPlugin | null = Capacitor.isNativePlatform()
@@ -28,9 +81,130 @@ export const stopFallDetection = async () => {
   }
 };
 
+// The user turned fall detection off: stops the service and cancels any pending
+// check-in. stopFallDetection() keeps a pending check-in armed across restarts.
+export const disableFallDetection = async () => {
+  if (!plugin) return;
+  try {
+    await plugin.disable();
+  } catch (e) {
+    console.error('[FallDetection] disable failed', e);
+  }
+};
+
+// "I'm OK" in the app: cancels the native check-in so it does not escalate.
+export const acknowledgeFall = async () => {
+  if (!plugin) return;
+  try {
+    await plugin.acknowledge();
+  } catch (e) {
+    console.error('[FallDetection] acknowledge failed', e);
+  }
+};
+
+export const getActivityHistory = async (
+  from: Date | number,
+  to: Date | number,
+  resolution: ActivityResolution = 'auto'
+): Promise<ActivityHistory | null> => {
+  if (!plugin) return null;
+  try {
+    return await plugin.getActivityHistory({ from: +from, to: +to, resolution });
+  } catch (e) {
+    console.error('[FallDetection] getActivityHistory failed', e);
+    return null;
+  }
+};
+
+// Decoded native diagnostics ring (oldest event first), for support exports.
+export const exportDiagnostics = async (): Promise<string | null> => {
+  if (!plugin) return null;
+  try {
+    const { log } = await plugin.exportDiagnostics();
+    return log;
+  } catch (e) {
+    console.error('[FallDetection] exportDiagnostics failed', e);
+    return null;
+  }
+};
+
 export const subscribeFallDetected = (handler: () => void) => {
   if (!Capacitor.isNativePlatform()) return () => {};
   const listener = () => handler();
   window.addEventListener('fallDetected', listener);
   return () => window.removeEventListener('fallDetected', listener);
 };
+
+export const getDetectionTier = async (): Promise<DetectionTier | null> => {
+  if (!plugin) return null;
+  try {
+    const result = await plugin.getDetectionTier();
+    return result.tier ? (result as DetectionTier) : null;
+  } catch (e) {
+    console.error('[FallDetection] getDetectionTier failed', e);
+    return null;
+  }
+};
+
+export const subscribeDetectionTier = (handler: (tier: DetectionTier) => void) => {
+  if (!Capacitor.isNativePlatform()) return () => {};
+  const listener = (event: Event) => handler(event as unknown as DetectionTier);
+  window.addEventListener('detectionTierChanged', listener);
+  return () => window.removeEventListener('detectionTierChanged', listener);
+};
+
+// Caches contacts natively so the service can text and call them on escalation
+// without the WebView. Only pass contacts that have actually been loaded. An empty
+// list is ignored unless `allowEmpty` says the loaded list really is empty.
+export const syncEmergencyContacts = async (contacts: Contact[], allowEmpty = false) => {
+  if (!plugin) return;
+  try {
+    await plugin.setEmergencyContacts({
+      contacts: contacts.map(({ name, phone, isPrimary }) => ({ name, phone, isPrimary: !!isPrimary })),
+      allowEmpty,
+    });
+  } catch (e) {
+    console.error('[FallDetection] syncEmergencyContacts failed', e);
+  }
+};
+
+// SMS/call permission for the native escalation. Call from a user action.
+export const requestEmergencyPermissions = async () => {
+  if (!plugin) return;
+  try {
+    await plugin.requestPermissions({ permissions: ['emergency'] });
+  } catch (e) {
+    console.error('[FallDetection] requestEmergencyPermissions failed', e);
+  }
+};
+
+// Exact alarms back the escalation deadline when the app is not running. Opens the
+// system settings page if they are not allowed. Call from a user action.
+export const requestExactAlarmPermission = async (): Promise<boolean> => {
+  if (!plugin) return true;
+  try {
+    const { granted } = await plugin.requestExactAlarmPermission();
+    return granted;
+  } catch (e) {
+    console.error('[FallDetection] requestExactAlarmPermission failed', e);
+    return false;
+  }
+};
+
+export const getLastDispatch = async (): Promise<EmergencyDispatch | null> => {
+  if (!plugin) return null;
+  try {
+    const result = await plugin.getLastDispatch();
+    return result.contacts ? (result as EmergencyDispatch) : null;
+  } catch (e) {
+    console.error('[FallDetection] getLastDispatch failed', e);
+    return null;
+  }
+};
+
+export const subscribeEmergencyDispatch = (handler: (dispatch: EmergencyDispatch) => void) => {
+  if (!Capacitor.isNativePlatform()) return () => {};
+  const listener = (event: Event) => handler(event as unknown as EmergencyDispatch);
+  window.addEventListener('emergencyDispatchStatus', listener);
+  return () => window.removeEventListener('emergencyDispatchStatus', listener);
+};